@@ -0,0 +1,474 @@
+package librarysystem;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// HTTP/JSON front end for the circulation services, so desks and kiosks share this
+// process's connection pool, indexes and caches instead of each opening its own.
+//
+//   POST   /api/login                {email, password} -> {token, memberId, name, role}
+//   POST   /api/logout
+//   GET    /api/books?q=&type=       search (type All, Title, Author, ISBN)
+//   GET    /api/books/isbn/{isbn}
+//   GET    /api/books/{bookId}/holds queue length; librarians also get the queue
+//   POST   /api/checkout             {bookId, memberId}
+//   POST   /api/return               {bookId, memberId}
+//   POST   /api/renew                {loanId}
+//   GET    /api/holds                the caller's holds (librarians: ?memberId=)
+//   POST   /api/holds                {bookId, memberId}
+//   DELETE /api/holds/{holdId}       ?memberId= for librarians
+//   GET    /api/members              librarians only
+//   GET    /api/members/{memberId}   member plus loan/fine/hold totals
+//   GET    /api/health
+//
+// Everything but login and health needs "Authorization: Bearer <token>". Members act for
+// themselves only; memberId is optional for them and must match when given.
+// A login that cannot be checked because the server is overloaded gets 503 with Retry-After,
+// never 401.
+//
+// Requests run on virtual threads when the JVM has them (Java 21+), otherwise on a bounded
+// pool. Either way the database pool is the real limit, so handlers never hold a connection
+// while waiting for the client.
+public class ApiServer {
+
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private static HttpServer server;
+    private static ExecutorService executor;
+
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+
+    private static final BookService bookService = new BookService();
+    private static final BorrowingService borrowingService = new BorrowingService();
+    private static final MemberService memberService = new MemberService();
+
+    public static synchronized void start(int port, int maxThreads) throws IOException {
+        if (server != null) {
+            return;
+        }
+        executor = newExecutor(maxThreads);
+        server = HttpServer.create(new InetSocketAddress(port), 256);
+        server.createContext("/api/", ApiServer::handle);
+        server.setExecutor(executor);
+        server.start();
+        System.out.println("API server listening on port " + server.getAddress().getPort());
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(2);
+            executor.shutdown();
+            server = null;
+            executor = null;
+        }
+    }
+
+    // The bound port, useful when started on port 0; -1 when not running
+    public static synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    // Virtual threads are looked up reflectively so the code still builds and runs on Java 17
+    private static ExecutorService newExecutor(int maxThreads) {
+        try {
+            Object virtual = java.util.concurrent.Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return (ExecutorService) virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            // A full queue runs the request on the accepting thread, which stops accepting
+            // until it is done: back pressure instead of an unbounded backlog
+            return new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(maxThreads * 4),
+                    r -> {
+                        Thread t = new Thread(r, "api-worker-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        inFlight.incrementAndGet();
+        try {
+            Response response;
+            try {
+                response = route(exchange);
+            } catch (IllegalArgumentException e) {
+                response = new Response(400, message("FAIL", e.getMessage()));
+            } catch (SecurityException e) {
+                response = new Response(403, message("FAIL", e.getMessage()));
+            } catch (AuthService.ServerBusyException e) {
+                response = new Response(503, message("ERROR", e.getMessage()));
+                response.retryAfterSeconds = e.getRetryAfterSeconds();
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                System.err.println("API error on " + exchange.getRequestURI() + ": " + e);
+                response = new Response(500, message("ERROR", "Internal error"));
+            }
+            send(exchange, response);
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static Response route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path[0];
+
+        if (resource.equals("health") && method.equals("GET")) {
+            return ok(health());
+        }
+        if (resource.equals("login") && method.equals("POST")) {
+            return login(readBody(exchange), exchange.getRemoteAddress().getAddress().getHostAddress());
+        }
+
+        SessionStore.Session session = SessionManager.getInstance().getStore().get(bearerToken(exchange));
+        if (session == null) {
+            return new Response(401, message("FAIL", "Not logged in or session expired"));
+        }
+        User user = session.getUser();
+
+        switch (resource) {
+            case "logout":
+                if (method.equals("POST")) {
+                    SessionManager.getInstance().getStore().end(session.getToken());
+                    return ok(message("SUCCESS", "Logged out"));
+                }
+                break;
+            case "books":
+                if (method.equals("GET")) {
+                    return books(path, query, user);
+                }
+                break;
+            case "checkout":
+            case "return":
+                if (method.equals("POST")) {
+                    Map<String, String> body = readBody(exchange);
+                    int bookId = intParam(body, "bookId");
+                    int memberId = actingMember(user, body.get("memberId"));
+                    return result(resource.equals("checkout")
+                            ? borrowingService.checkOutBook(bookId, memberId)
+                            : borrowingService.returnBook(bookId, memberId));
+                }
+                break;
+            case "renew":
+                if (method.equals("POST")) {
+                    int loanId = intParam(readBody(exchange), "loanId");
+                    int owner = borrowingService.getLoanMemberId(loanId);
+                    if (owner < 0) {
+                        return new Response(404, message("FAIL", "Loan not found"));
+                    }
+                    actingMember(user, String.valueOf(owner));
+                    return result(borrowingService.renewLoan(loanId));
+                }
+                break;
+            case "holds":
+                return holds(method, path, query, exchange, user);
+            case "members":
+                if (method.equals("GET")) {
+                    return members(path, user);
+                }
+                break;
+            default:
+                return new Response(404, message("FAIL", "Unknown resource"));
+        }
+        return new Response(405, message("FAIL", "Method not allowed"));
+    }
+
+    private static Response login(Map<String, String> body, String client) {
+        String email = body.get("email");
+        String password = body.get("password");
+        if (email == null || password == null) {
+            throw new IllegalArgumentException("email and password are required");
+        }
+        User user = AuthService.authenticate(email, password, client);
+        if (user == null) {
+            long retryAfter = AuthService.loginRetryAfterSeconds(email, client);
+            if (retryAfter > 0) {
+                Response response = new Response(429, message("FAIL", "Too many login attempts"));
+                response.retryAfterSeconds = retryAfter;
+                return response;
+            }
+            return new Response(401, message("FAIL", "Invalid email or password"));
+        }
+        SessionStore.Session session = SessionManager.getInstance().getStore().create(user);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("token", session.getToken());
+        out.put("memberId", user.getMemberId());
+        out.put("name", user.getName());
+        out.put("role", user.getRole());
+        return ok(out);
+    }
+
+    private static Response books(String[] path, Map<String, String> query, User user) {
+        if (path.length == 1) {
+            List<Object> out = new ArrayList<>();
+            for (Book b : bookService.searchBooks(query.get("q"), query.getOrDefault("type", "All"))) {
+                out.add(book(b));
+            }
+            return ok(out);
+        }
+        if (path.length == 3 && path[1].equals("isbn")) {
+            Book b = bookService.getBookByIsbn(path[2]);
+            return b == null ? new Response(404, message("FAIL", "Book not found")) : ok(book(b));
+        }
+        if (path.length == 3 && path[2].equals("holds")) {
+            int bookId = parseInt(path[1], "bookId");
+            int queueLength = ReservationService.getQueueLength(bookId);
+            if (queueLength < 0) {
+                return new Response(500, message("ERROR", "Database access failed"));
+            }
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("bookId", bookId);
+            out.put("queueLength", queueLength);
+            if (user.isLibrarian()) {
+                List<Object> queue = new ArrayList<>();
+                for (Hold h : ReservationService.getQueueForBook(bookId)) {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("holdId", h.getHoldId());
+                    m.put("memberId", h.getMemberId());
+                    m.put("status", h.getStatus());
+                    m.put("placeDate", h.getPlaceDate());
+                    m.put("position", h.getQueuePosition());
+                    queue.add(m);
+                }
+                out.put("queue", queue);
+            }
+            return ok(out);
+        }
+        return new Response(404, message("FAIL", "Unknown resource"));
+    }
+
+    private static Response holds(String method, String[] path, Map<String, String> query,
+                                  HttpExchange exchange, User user) throws IOException {
+        if (method.equals("GET") && path.length == 1) {
+            int memberId = actingMember(user, query.get("memberId"));
+            List<Object> out = new ArrayList<>();
+            for (String[] row : ReservationService.getHoldsForMemberTableData(memberId)) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("holdId", Integer.parseInt(row[0]));
+                m.put("title", row[1]);
+                m.put("status", row[2]);
+                m.put("placeDate", row[3]);
+                out.add(m);
+            }
+            return ok(out);
+        }
+        if (method.equals("POST") && path.length == 1) {
+            Map<String, String> body = readBody(exchange);
+            int bookId = intParam(body, "bookId");
+            return result(ReservationService.placeHold(bookId, actingMember(user, body.get("memberId"))));
+        }
+        if (method.equals("DELETE") && path.length == 2) {
+            int holdId = parseInt(path[1], "holdId");
+            int memberId = actingMember(user, query.get("memberId"));
+            return ReservationService.cancelHold(holdId, memberId)
+                    ? ok(message("SUCCESS", "Hold cancelled"))
+                    : new Response(404, message("FAIL", "No open hold " + holdId + " for member " + memberId));
+        }
+        return new Response(405, message("FAIL", "Method not allowed"));
+    }
+
+    private static Response members(String[] path, User user) {
+        if (path.length == 1) {
+            if (!user.isLibrarian()) {
+                return forbidden();
+            }
+            List<Object> out = new ArrayList<>();
+            for (User m : memberService.getAllMembers()) {
+                out.add(member(m));
+            }
+            return ok(out);
+        }
+        int memberId = actingMember(user, path[1]);
+        User m = memberService.getMemberById(memberId);
+        if (m == null) {
+            return new Response(404, message("FAIL", "Member not found"));
+        }
+        Map<String, Object> out = member(m);
+        MemberSummary summary = MemberSummary.get(memberId);
+        if (summary != null) {
+            out.put("activeLoans", summary.getActiveLoans());
+            out.put("unpaidFines", summary.getUnpaidFines());
+            out.put("readyHolds", summary.getReadyHolds());
+        }
+        return ok(out);
+    }
+
+    // Librarians may act for anyone; members only for themselves
+    private static int actingMember(User user, String requested) {
+        if (requested == null || requested.isEmpty()) {
+            return user.getMemberId();
+        }
+        int memberId = parseInt(requested, "memberId");
+        if (memberId != user.getMemberId() && !user.isLibrarian()) {
+            throw new SecurityException("Members can only act for themselves");
+        }
+        return memberId;
+    }
+
+    private static Map<String, Object> book(Book b) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("bookId", b.getBookId());
+        m.put("isbn", b.getIsbn());
+        m.put("title", b.getTitle());
+        m.put("author", b.getAuthor());
+        m.put("category", b.getCategory());
+        m.put("publicationYear", b.getPublicationYear());
+        m.put("totalCopies", b.getTotalCopies());
+        m.put("availableCopies", b.getAvailableCopies());
+        return m;
+    }
+
+    private static Map<String, Object> member(User u) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("memberId", u.getMemberId());
+        m.put("name", u.getName());
+        m.put("email", u.getEmail());
+        m.put("role", u.getRole());
+        m.put("active", u.isActive());
+        return m;
+    }
+
+    private static Map<String, Object> health() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("requests", requests.get());
+        m.put("errors", errors.get());
+        m.put("inFlight", inFlight.get());
+        m.put("sessions", SessionManager.getInstance().getStore().size());
+        m.put("logins", String.valueOf(AuthService.getLoginLimiterStats()));
+        m.put("pool", String.valueOf(DatabaseConnection.getPoolStats()));
+        return m;
+    }
+
+    // Maps the services' "SUCCESS: ..." / "FAIL: ..." / "ERROR: ..." strings to a status
+    private static Response result(String result) {
+        int colon = result.indexOf(':');
+        String status = colon > 0 ? result.substring(0, colon) : "INFO";
+        String text = colon > 0 ? result.substring(colon + 1).trim() : result;
+        int code;
+        switch (status) {
+            case "SUCCESS":
+            case "INFO":
+                code = 200;
+                break;
+            case "FAIL":
+                code = 409;
+                break;
+            default:
+                code = 500;
+        }
+        return new Response(code, message(status, text));
+    }
+
+    private static Map<String, Object> message(String status, String text) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("status", status);
+        m.put("message", text);
+        return m;
+    }
+
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response forbidden() {
+        return new Response(403, message("FAIL", "Librarian privileges required"));
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return parseInt(value, name);
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (response.retryAfterSeconds > 0) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(response.retryAfterSeconds));
+        }
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static class Response {
+        final int status;
+        final Object body;
+        long retryAfterSeconds;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
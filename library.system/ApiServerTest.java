@@ -0,0 +1,143 @@
+package librarysystem;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+
+// End-to-end test of the HTTP API: starts ApiServer on a free port and checks that
+// requests without a session are refused, that members cannot act for other members,
+// that bad JSON is a 400, and that a checkout/return round trip moves the book's
+// available count down and back up. Runs against an in-memory H2 database unless
+// -Dlibrary.db is given.
+public class ApiServerTest {
+
+    private static final String PASSWORD = "ApiTest123!";
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static String baseUrl;
+    private static boolean passed = true;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== API SERVER TEST ===");
+        if (System.getProperty("library.db") == null) {
+            System.setProperty("library.db", "h2");
+        }
+        PasswordUtils.setIterations(1_000); // login cost is not what is tested here
+        MigrationRunner.migrate(false);
+
+        String tag = "api-" + System.currentTimeMillis();
+        String isbn = tag.toUpperCase();
+        int librarianId = createMember(tag + "-lib@test.local", "LIBRARIAN");
+        int aliceId = createMember(tag + "-alice@test.local", "MEMBER");
+        int bobId = createMember(tag + "-bob@test.local", "MEMBER");
+        int bookId = TestFixtures.createBook(isbn, "API Test", 2);
+        List<Integer> members = List.of(librarianId, aliceId, bobId);
+
+        try {
+            ApiServer.start(0, 4);
+            baseUrl = "http://localhost:" + ApiServer.getPort() + "/api/";
+
+            System.out.println("\nAuthentication:");
+            expect("health needs no token", send("GET", "health", null, null), 200);
+            expect("no token", send("GET", "holds", null, null), 401);
+            expect("unknown token", send("GET", "holds", null, "not-a-session"), 401);
+            expect("wrong password", send("POST", "login",
+                    "{\"email\": \"" + tag + "-alice@test.local\", \"password\": \"nope\"}", null), 401);
+            String alice = login(tag + "-alice@test.local");
+            String librarian = login(tag + "-lib@test.local");
+
+            System.out.println("\nActing for another member:");
+            expect("member checks out for someone else", send("POST", "checkout",
+                    "{\"bookId\": " + bookId + ", \"memberId\": " + bobId + "}", alice), 403);
+            expect("member reads someone else's account", send("GET", "members/" + bobId, null, alice), 403);
+            expect("member lists all members", send("GET", "members", null, alice), 403);
+            expect("member reads own account", send("GET", "members/" + aliceId, null, alice), 200);
+            expect("librarian reads any account", send("GET", "members/" + bobId, null, librarian), 200);
+
+            System.out.println("\nMalformed requests:");
+            expect("truncated JSON", send("POST", "checkout", "{\"bookId\": ", alice), 400);
+            expect("not an object", send("POST", "checkout", "[" + bookId + "]", alice), 400);
+            expect("nested object", send("POST", "checkout", "{\"bookId\": {\"id\": " + bookId + "}}", alice), 400);
+            expect("nested array", send("POST", "checkout", "{\"bookId\": [" + bookId + "]}", alice), 400);
+            expect("trailing content", send("POST", "checkout", "{\"bookId\": " + bookId + "} {}", alice), 400);
+            expect("missing bookId", send("POST", "checkout", "{}", alice), 400);
+            expect("non-numeric bookId", send("POST", "checkout", "{\"bookId\": \"abc\"}", alice), 400);
+
+            System.out.println("\nCheckout and return:");
+            expect("available before", availableCopies(isbn, alice), 2);
+            expect("member checks out", send("POST", "checkout", "{\"bookId\": " + bookId + "}", alice), 200);
+            expect("available after checkout", availableCopies(isbn, alice), 1);
+            expect("member returns", send("POST", "return", "{\"bookId\": " + bookId + "}", alice), 200);
+            expect("available after return", availableCopies(isbn, alice), 2);
+            expect("librarian checks out for a member", send("POST", "checkout",
+                    "{\"bookId\": " + bookId + ", \"memberId\": " + bobId + "}", librarian), 200);
+            expect("librarian returns for a member", send("POST", "return",
+                    "{\"bookId\": " + bookId + ", \"memberId\": " + bobId + "}", librarian), 200);
+            expect("available at the end", availableCopies(isbn, alice), 2);
+
+            System.out.println("\nLogout:");
+            expect("logout", send("POST", "logout", null, alice), 200);
+            expect("token after logout", send("GET", "holds", null, alice), 401);
+
+        } finally {
+            ApiServer.stop();
+            TestFixtures.cleanUp(bookId, members);
+            DatabaseConnection.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (passed ? "PASSED" : "FAILED"));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static HttpResponse<String> send(String method, String path, String body, String token)
+            throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                                             : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String login(String email) throws Exception {
+        HttpResponse<String> response = send("POST", "login",
+                "{\"email\": \"" + email + "\", \"password\": \"" + PASSWORD + "\"}", null);
+        expect("login " + email, response, 200);
+        String token = Json.parseObject(response.body()).get("token");
+        if (token == null) {
+            throw new IllegalStateException("No token in login response: " + response.body());
+        }
+        return token;
+    }
+
+    private static int availableCopies(String isbn, String token) throws Exception {
+        HttpResponse<String> response = send("GET", "books/isbn/" + isbn, null, token);
+        if (response.statusCode() != 200) {
+            return -response.statusCode();
+        }
+        Map<String, String> book = Json.parseObject(response.body());
+        return Integer.parseInt(book.get("availableCopies"));
+    }
+
+    private static int createMember(String email, String role) throws SQLException {
+        return TestFixtures.createMember("API Test " + role, email, PasswordUtils.hashPassword(PASSWORD), role);
+    }
+
+    private static void expect(String name, HttpResponse<String> response, int status) {
+        boolean ok = response.statusCode() == status;
+        System.out.printf("  %-40s %-4s %d (expected %d) %s%n", name, ok ? "OK" : "FAIL",
+                response.statusCode(), status, ok ? "" : response.body());
+        passed &= ok;
+    }
+
+    private static void expect(String name, int actual, int expected) {
+        boolean ok = actual == expected;
+        System.out.printf("  %-40s %-4s %d (expected %d)%n", name, ok ? "OK" : "FAIL", actual, expected);
+        passed &= ok;
+    }
+}
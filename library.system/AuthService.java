@@ -1,50 +1,187 @@
 package librarysystem;
 
 import java.sql.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 public class AuthService {
+
+    // Password checks are CPU-bound, so at most one per core runs at a time however many
+    // logins arrive; the rest queue. A burst (a whole class logging in at term start) gets
+    // slower logins instead of pinned CPUs, and beyond the queue a login fails fast.
+    private static final int VERIFY_THREADS = Integer.getInteger("library.authThreads",
+            Runtime.getRuntime().availableProcessors());
+    private static final int VERIFY_QUEUE = Integer.getInteger("library.authQueue", 512);
+    private static final long VERIFY_TIMEOUT_MS = 15_000;
+    private static final long BUSY_RETRY_SECONDS = 5;
+
+    private static final AtomicInteger verifierThreads = new AtomicInteger();
+    private static final ThreadPoolExecutor verifier = new ThreadPoolExecutor(
+            VERIFY_THREADS, VERIFY_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(VERIFY_QUEUE),
+            r -> {
+                Thread t = new Thread(r, "password-verifier-" + verifierThreads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        verifier.allowCoreThreadTimeOut(true);
+    }
+
+    private static final LoginRateLimiter limiter = LoginRateLimiter.fromConfig();
+
+    // Client key for logins from the desktop application
+    public static final String LOCAL_CLIENT = "desktop";
     
     public static User authenticate(String email, String password) {
-        String sql = "SELECT * FROM members WHERE email = ? AND is_active = true";
+        return authenticate(email, password, LOCAL_CLIENT);
+    }
+
+    // client identifies where the attempt comes from (an IP address for the API) for rate limiting
+    // Returns null for a wrong or throttled login; throws ServerBusyException when the password
+    // could not be checked at all
+    public static User authenticate(String email, String password, String client) {
+        long retryAfter = limiter.tryAcquire(email, client);
+        if (retryAfter > 0) {
+            return null; // counted in getLoginLimiterStats; no logging on this hot path
+        }
+
+        String sql = "SELECT member_id, name, email, role, is_active, password_hash FROM members " +
+                     "WHERE email = ? AND is_active = true";
         
+        // Read the row and give the connection back before the password check, which can
+        // wait for a verifier thread; desks should not run short of connections meanwhile
+        User user = null;
+        String storedHash = null;
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, email);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-                String userName = rs.getString("name");
-                
-                System.out.println("🔐 Authentication Debug:");
-                System.out.println("  User: " + userName + " (" + email + ")");
-                System.out.println("  Input password: " + password);
-                System.out.println("  Stored hash: " + storedHash);
-                System.out.println("  Hash length: " + (storedHash != null ? storedHash.length() : "null"));
-                
-                // Use proper password verification
-                if (PasswordUtils.checkPassword(password, storedHash)) {
-                    System.out.println("  ✅ Password verification: SUCCESS");
-                    return new User(
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    storedHash = rs.getString("password_hash");
+                    user = new User(
                         rs.getInt("member_id"),
-                        userName,
+                        rs.getString("name"),
                         rs.getString("email"),
                         rs.getString("role"),
                         rs.getBoolean("is_active")
                     );
-                } else {
-                    System.out.println("  ❌ Password verification: FAILED");
                 }
-            } else {
-                System.out.println("  ❌ User not found or inactive: " + email);
             }
         } catch (SQLException e) {
             System.err.println("Authentication error: " + e.getMessage());
+            throw new ServerBusyException("Server busy, try again", BUSY_RETRY_SECONDS);
+        }
+        
+        if (user != null) {
+            System.out.println("🔐 Authentication Debug:");
+            System.out.println("  User: " + user.getName() + " (" + email + ")");
+            
+            // Use proper password verification
+            Verification result = verifyPassword(password, storedHash);
+            if (result == Verification.BUSY) {
+                System.out.println("  ⏳ Password verification: not run, server busy");
+                throw new ServerBusyException("Server busy, try again", BUSY_RETRY_SECONDS);
+            }
+            if (result == Verification.MATCH) {
+                System.out.println("  ✅ Password verification: SUCCESS");
+                limiter.recordSuccess(email);
+                if (PasswordUtils.needsRehash(storedHash)) {
+                    upgradeHashLater(user.getMemberId(), password, storedHash);
+                }
+                return user;
+            }
+            System.out.println("  ❌ Password verification: FAILED");
+        } else {
+            System.out.println("  ❌ User not found or inactive: " + email);
         }
+        // Only a wrong password or an unknown email counts towards a lockout; an
+        // overloaded verifier or database is not the user's fault
+        limiter.recordFailure(email, client);
         return null; // Authentication failed
     }
+
+    // After a failed login: seconds until this email/client may try again, 0 if it may now
+    public static long loginRetryAfterSeconds(String email, String client) {
+        return limiter.retryAfterSeconds(email, client);
+    }
+
+    public static LoginRateLimiter.Stats getLoginLimiterStats() {
+        return limiter.getStats();
+    }
+
+    // Outcome of a password check. BUSY means the check never ran to completion (queue
+    // full, timed out or interrupted) and says nothing about the password.
+    enum Verification { MATCH, MISMATCH, BUSY }
+
+    // Runs the check on the verifier pool and waits for it
+    static Verification verifyPassword(String password, String storedHash) {
+        Future<Boolean> check;
+        try {
+            check = verifier.submit(() -> PasswordUtils.checkPassword(password, storedHash));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Login rejected: too many logins in progress");
+            return Verification.BUSY;
+        }
+        try {
+            return check.get(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS) ? Verification.MATCH : Verification.MISMATCH;
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            System.err.println("Login rejected: password check timed out");
+            return Verification.BUSY;
+        } catch (InterruptedException e) {
+            check.cancel(true);
+            Thread.currentThread().interrupt();
+            return Verification.BUSY;
+        } catch (ExecutionException e) {
+            System.err.println("Error verifying password: " + e.getCause());
+            return Verification.MISMATCH;
+        }
+    }
+
+    // Thrown by authenticate when the login could not be checked because the server is
+    // overloaded or the database is unreachable. Callers should ask the user to try again
+    // rather than report a wrong password.
+    public static class ServerBusyException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public ServerBusyException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+
+    // Re-hashes a legacy or outdated hash with the current cost after a successful login.
+    // Runs on the verifier pool without holding up the login; if the pool is busy it
+    // simply happens at a later login.
+    private static void upgradeHashLater(int memberId, String password, String oldHash) {
+        try {
+            verifier.execute(() -> {
+                String sql = "UPDATE members SET password_hash = ? WHERE member_id = ? AND password_hash = ?";
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, PasswordUtils.hashPassword(password));
+                    pstmt.setInt(2, memberId);
+                    pstmt.setString(3, oldHash); // unless the password changed meanwhile
+                    pstmt.executeUpdate();
+                } catch (SQLException e) {
+                    System.err.println("Could not upgrade password hash: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // try again next login
+        }
+    }
     
     public static boolean registerUser(String name, String email, String password, String role) {
         // Validate inputs
@@ -126,7 +263,7 @@ public static boolean verifyCurrentPassword(String email, String currentPassword
         
         if (rs.next()) {
             String storedHash = rs.getString("password_hash");
-            return PasswordUtils.checkPassword(currentPassword, storedHash);
+            return verifyPassword(currentPassword, storedHash) == Verification.MATCH;
         }
     } catch (SQLException e) {
         System.err.println("Error verifying current password: " + e.getMessage());
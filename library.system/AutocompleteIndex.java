@@ -0,0 +1,360 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Search-as-you-type suggestions for titles and authors. Keys live in a path-compressed
+// radix trie and every node caches the best few entries below it, so a lookup is a walk
+// down the prefix followed by returning that node's cached list.
+public class AutocompleteIndex {
+
+    public static final String KIND_TITLE = "Title";
+    public static final String KIND_AUTHOR = "Author";
+
+    private static final int CACHED_PER_NODE = 10;
+
+    private static final AutocompleteIndex instance = new AutocompleteIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node("");
+    private Map<Integer, BookRef> books = new HashMap<>();
+    private volatile boolean ready;
+
+    // Changes made while a rebuild is reading the table; replayed after the swap
+    private List<Runnable> journal;
+
+    private AutocompleteIndex() {
+    }
+
+    public static AutocompleteIndex getInstance() {
+        return instance;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        // Popularity is the number of loans ever made against the title
+        String sql = "SELECT b.book_id, b.title, b.author, COUNT(l.loan_id) AS loans " +
+                     "FROM books b " +
+                     "LEFT JOIN copies c ON c.book_id = b.book_id " +
+                     "LEFT JOIN loans l ON l.copy_id = c.copy_id " +
+                     "GROUP BY b.book_id, b.title, b.author";
+
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Node newRoot = new Node("");
+        Map<Integer, BookRef> newBooks = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                BookRef book = new BookRef(rs.getString("title"), rs.getString("author"), rs.getLong("loans"));
+                newBooks.put(rs.getInt("book_id"), book);
+                insert(newRoot, book.title, KIND_TITLE, book.loans, false);
+                insert(newRoot, book.author, KIND_AUTHOR, book.loans, false);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error building autocomplete index: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        refreshAll(newRoot);
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            books = newBooks;
+            for (Runnable change : journal) {
+                change.run();
+            }
+            journal = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Autocomplete index built from " + newBooks.size() + " books in " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void addBook(int bookId, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> {
+                doRemove(bookId);
+                BookRef book = new BookRef(title, author, 0);
+                books.put(bookId, book);
+                insert(root, book.title, KIND_TITLE, 0, true);
+                insert(root, book.author, KIND_AUTHOR, 0, true);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBook(int bookId) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> doRemove(bookId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    // Takes the book's loans back out of the popularity it added to its title and author
+    private void doRemove(int bookId) {
+        BookRef book = books.remove(bookId);
+        if (book == null) {
+            return;
+        }
+        remove(book.title, KIND_TITLE, book.loans);
+        remove(book.author, KIND_AUTHOR, book.loans);
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        List<Suggestion> out = new ArrayList<>();
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return out;
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    return out;
+                }
+                String label = child.label;
+                int remaining = key.length() - i;
+                if (remaining <= label.length()) {
+                    if (!label.startsWith(key.substring(i))) {
+                        return out;
+                    }
+                    node = child;
+                    break;
+                }
+                if (!key.startsWith(label, i)) {
+                    return out;
+                }
+                i += label.length();
+                node = child;
+            }
+
+            for (Entry e : node.top) {
+                if (out.size() >= limit) break;
+                out.add(new Suggestion(e.text, e.kind, e.popularity));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void insert(Node root, String text, String kind, long popularity, boolean refreshPath) {
+        if (text == null || text.trim().isEmpty()) {
+            return;
+        }
+        String key = normalize(text);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(c, child);
+                node = child;
+                path.add(node);
+                i = key.length();
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> mid -> child
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children.put(child.label.charAt(0), child);
+                mid.top = child.top;
+                node.children.put(c, mid);
+                child = mid;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+
+        Entry entry = node.entries.computeIfAbsent(kind, k -> new Entry(text.trim(), k));
+        entry.popularity += popularity;
+        entry.refs++;
+
+        if (refreshPath) {
+            for (int p = path.size() - 1; p >= 0; p--) {
+                refresh(path.get(p));
+            }
+        }
+    }
+
+    private void remove(String text, String kind, long popularity) {
+        if (text == null || text.trim().isEmpty()) {
+            return;
+        }
+        String key = normalize(text);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+
+        Entry entry = node.entries.get(kind);
+        if (entry == null) {
+            return;
+        }
+        entry.popularity -= popularity;
+        if (--entry.refs <= 0) {
+            node.entries.remove(kind);
+        }
+
+        // Drop nodes that no longer lead anywhere
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node n = path.get(p);
+            if (n.entries.isEmpty() && n.children.isEmpty()) {
+                path.get(p - 1).children.remove(n.label.charAt(0));
+            }
+        }
+        for (int p = path.size() - 1; p >= 0; p--) {
+            refresh(path.get(p));
+        }
+    }
+
+    private static void refreshAll(Node node) {
+        for (Node child : node.children.values()) {
+            refreshAll(child);
+        }
+        refresh(node);
+    }
+
+    // Recompute the cached best entries of a node from its own entries and its children's caches
+    private static void refresh(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.entries.values());
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        candidates.sort((a, b) -> {
+            int c = Long.compare(b.popularity, a.popularity);
+            return c != 0 ? c : a.text.compareToIgnoreCase(b.text);
+        });
+        node.top = candidates.size() > CACHED_PER_NODE
+                ? new ArrayList<>(candidates.subList(0, CACHED_PER_NODE))
+                : candidates;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+
+    private static class Node {
+        String label;
+        final Map<Character, Node> children = new HashMap<>(4);
+        final Map<String, Entry> entries = new HashMap<>(2);
+        List<Entry> top = new ArrayList<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class BookRef {
+        final String title;
+        final String author;
+        final long loans;
+
+        BookRef(String title, String author, long loans) {
+            this.title = title;
+            this.author = author;
+            this.loans = loans;
+        }
+    }
+
+    private static class Entry {
+        final String text;
+        final String kind;
+        long popularity;
+        int refs;
+
+        Entry(String text, String kind) {
+            this.text = text;
+            this.kind = kind;
+        }
+    }
+
+    public static class Suggestion {
+        private final String text;
+        private final String kind;
+        private final long popularity;
+
+        Suggestion(String text, String kind, long popularity) {
+            this.text = text;
+            this.kind = kind;
+            this.popularity = popularity;
+        }
+
+        public String getText() { return text; }
+        public String getKind() { return kind; }
+        public long getPopularity() { return popularity; }
+
+        @Override
+        public String toString() {
+            return text + "  (" + kind + ")";
+        }
+    }
+}
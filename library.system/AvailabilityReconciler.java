@@ -0,0 +1,129 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Repairs drift between books.total_copies / books.available_copies and the copies table.
+// Works in book_id ranges so large catalogs are never locked as a whole.
+public class AvailabilityReconciler {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static ScheduledExecutorService scheduler;
+
+    public static synchronized void start(long periodMinutes) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "availability-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            int fixed = reconcile();
+            if (fixed > 0) {
+                System.out.println("Availability reconciler repaired " + fixed + " book(s)");
+            }
+        }, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static int reconcile() {
+        int repaired = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int minId;
+            int maxId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(book_id), MAX(book_id) FROM books")) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return 0;
+                }
+                minId = rs.getInt(1);
+                maxId = rs.getInt(2);
+            }
+
+            for (int from = minId; from <= maxId; from += BATCH_SIZE) {
+                repaired += reconcileRange(conn, from, from + BATCH_SIZE - 1);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reconciling availability counters: " + e.getMessage());
+        }
+
+        return repaired;
+    }
+
+    private static int reconcileRange(Connection conn, int fromId, int toId) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            // Lock the book rows first; checkout and return update the same rows, so they
+            // serialize with us instead of racing the recount.
+            Map<Integer, int[]> stored = new HashMap<>();
+            String lockSql = "SELECT book_id, total_copies, available_copies FROM books " +
+                             "WHERE book_id BETWEEN ? AND ? FOR UPDATE";
+            try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                ps.setInt(1, fromId);
+                ps.setInt(2, toId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        stored.put(rs.getInt(1), new int[]{rs.getInt(2), rs.getInt(3)});
+                    }
+                }
+            }
+
+            Map<Integer, int[]> actual = new HashMap<>();
+            String countSql = "SELECT book_id, COUNT(*), " +
+                              "SUM(CASE WHEN status = 'AVAILABLE' THEN 1 ELSE 0 END) " +
+                              "FROM copies WHERE book_id BETWEEN ? AND ? GROUP BY book_id";
+            try (PreparedStatement ps = conn.prepareStatement(countSql)) {
+                ps.setInt(1, fromId);
+                ps.setInt(2, toId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        actual.put(rs.getInt(1), new int[]{rs.getInt(2), rs.getInt(3)});
+                    }
+                }
+            }
+
+            int repaired = 0;
+            String updateSql = "UPDATE books SET total_copies = ?, available_copies = ? WHERE book_id = ?";
+            try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                for (Map.Entry<Integer, int[]> e : stored.entrySet()) {
+                    int[] want = actual.getOrDefault(e.getKey(), new int[]{0, 0});
+                    int[] have = e.getValue();
+                    if (want[0] != have[0] || want[1] != have[1]) {
+                        ps.setInt(1, want[0]);
+                        ps.setInt(2, want[1]);
+                        ps.setInt(3, e.getKey());
+                        ps.addBatch();
+                        repaired++;
+                    }
+                }
+                if (repaired > 0) {
+                    ps.executeBatch();
+                }
+            }
+
+            conn.commit();
+            return repaired;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package librarysystem;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs blocking work (JDBC, password hashing) off the Event Dispatch Thread and delivers
+// the result back on the EDT. While a task runs, the window it belongs to shows a wait cursor.
+public class BackgroundTasks {
+
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    private static final int MAX_THREADS = 8;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> {
+                Thread t = new Thread(r, "ui-background-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Only touched on the EDT
+    private static final Map<Window, Integer> busyWindows = new HashMap<>();
+
+    public static <T> Task run(Component owner, Work<T> work, Consumer<T> onSuccess) {
+        return run(owner, work, onSuccess, e -> showError(owner, e));
+    }
+
+    public static <T> Task run(Component owner, Work<T> work, Consumer<T> onSuccess,
+                               Consumer<Exception> onError) {
+        Task task = new Task();
+        Window window = owner == null ? null : SwingUtilities.getWindowAncestor(owner);
+        if (owner instanceof Window) {
+            window = (Window) owner;
+        }
+        final Window busy = window;
+        markBusy(busy, 1);
+
+        // done() runs however the future ends, including a cancel before it ever started,
+        // so the busy count is always given back
+        FutureTask<T> future = new FutureTask<T>(work::call) {
+            @Override
+            protected void done() {
+                T result = null;
+                Exception failure = null;
+                boolean dropped = false;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failure = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                } catch (CancellationException | InterruptedException e) {
+                    dropped = true;
+                }
+                final T r = result;
+                final Exception f = failure;
+                final boolean skip = dropped;
+                SwingUtilities.invokeLater(() -> {
+                    markBusy(busy, -1);
+                    if (skip || task.isCancelled()) {
+                        return;
+                    }
+                    if (f != null) {
+                        onError.accept(f);
+                    } else if (onSuccess != null) {
+                        onSuccess.accept(r);
+                    }
+                });
+            }
+        };
+        task.future = future;
+        executor.execute(future);
+        return task;
+    }
+
+    private static void markBusy(Window window, int delta) {
+        if (window == null) {
+            return;
+        }
+        Runnable update = () -> {
+            int count = busyWindows.getOrDefault(window, 0) + delta;
+            if (count <= 0) {
+                busyWindows.remove(window);
+                window.setCursor(Cursor.getDefaultCursor());
+            } else {
+                busyWindows.put(window, count);
+                window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            }
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            update.run();
+        } else {
+            SwingUtilities.invokeLater(update);
+        }
+    }
+
+    private static void showError(Component owner, Exception e) {
+        System.err.println("Background task failed: " + e.getMessage());
+        JOptionPane.showMessageDialog(owner, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    public static class Task {
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+
+        // The callback is dropped and a task still in the queue never runs. One that is
+        // already running finishes its JDBC work; interrupting it mid-statement is not safe.
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null && f.cancel(false)) {
+                executor.remove((Runnable) f);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    // Keeps at most one outstanding task: starting a new one cancels the previous, so a
+    // slow, stale query can never overwrite the results of a newer one.
+    public static class Latest {
+        private Task current;
+
+        public <T> Task run(Component owner, Work<T> work, Consumer<T> onSuccess) {
+            if (current != null) {
+                current.cancel();
+            }
+            current = BackgroundTasks.run(owner, work, onSuccess);
+            return current;
+        }
+
+        public void cancel() {
+            if (current != null) {
+                current.cancel();
+                current = null;
+            }
+        }
+    }
+}
@@ -16,6 +16,19 @@ public class BookCatalogPanel extends JPanel {
     private JTable resultTable;
     private DefaultTableModel model;
     private BookService bookService = new BookService();
+    private JPopupMenu suggestionPopup = new JPopupMenu();
+    private Timer searchDebounce;
+    private boolean applyingSuggestion;
+
+    private static final int DEBOUNCE_MS = 250;
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final int PAGE_SIZE = 100;
+
+    private JButton moreBtn;
+    private BookPage lastPage;
+
+    // A newer search cancels the one still in flight so stale rows never land in the table
+    private final BackgroundTasks.Latest searchTask = new BackgroundTasks.Latest();
 
     public BookCatalogPanel() {
 
@@ -33,6 +46,8 @@ public class BookCatalogPanel extends JPanel {
         JButton searchBtn = new JButton("Search");
         JButton clearBtn = new JButton("Clear");
         JButton holdButton = new JButton("Place Hold");
+        moreBtn = new JButton("Load More");
+        moreBtn.setEnabled(false);
         
         top.add(new JLabel("Search: "));
         top.add(searchField);
@@ -40,6 +55,7 @@ public class BookCatalogPanel extends JPanel {
         top.add(searchBtn);
         top.add(clearBtn);
         top.add(holdButton);
+        top.add(moreBtn);
         
         add(top, BorderLayout.NORTH);
 
@@ -55,9 +71,13 @@ public class BookCatalogPanel extends JPanel {
         add(new JScrollPane(resultTable), BorderLayout.CENTER);
 
         searchBtn.addActionListener(e -> performSearch());
+        moreBtn.addActionListener(e -> loadNextPage());
         clearBtn.addActionListener(e -> {
+            searchTask.cancel();
             searchField.setText("");
             model.setRowCount(0);
+            lastPage = null;
+            moreBtn.setEnabled(false);
         });
          holdButton.addActionListener(e -> {
     int row = resultTable.getSelectedRow();
@@ -71,22 +91,6 @@ public class BookCatalogPanel extends JPanel {
  
     String isbn = model.getValueAt(modelRow, 0).toString();
 
-    Book book = null;
-    try {
-        java.util.List<Book> books = bookService.searchBooks(isbn, "ISBN");
-        if (!books.isEmpty()) {
-            book = books.get(0);
-        }
-    } catch (Exception ex) {
-        ex.printStackTrace();
-    }
-
-    if (book == null) {
-        JOptionPane.showMessageDialog(this, "Cannot find book details.", 
-                "Error", JOptionPane.ERROR_MESSAGE);
-        return;
-    }
-
     User current = SessionManager.getInstance().getCurrentUser();
     if (current == null) {
         JOptionPane.showMessageDialog(this, "Please log in first.", 
@@ -94,15 +98,38 @@ public class BookCatalogPanel extends JPanel {
         return;
     }
 
-    String result = ReservationService.placeHold(book.getBookId(), current.getMemberId());
-    JOptionPane.showMessageDialog(this, result, 
-            "Place Hold", JOptionPane.INFORMATION_MESSAGE);
+    holdButton.setEnabled(false);
+    BackgroundTasks.run(this, () -> {
+        Book book = bookService.getBookByIsbn(isbn);
+        return book == null ? null : ReservationService.placeHold(book.getBookId(), current.getMemberId());
+    }, result -> {
+        holdButton.setEnabled(true);
+        if (result == null) {
+            JOptionPane.showMessageDialog(this, "Cannot find book details.", 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this, result, 
+                "Place Hold", JOptionPane.INFORMATION_MESSAGE);
+    }, ex -> {
+        holdButton.setEnabled(true);
+        JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), 
+                "Place Hold", JOptionPane.ERROR_MESSAGE);
+    });
 });
         
+        // Typing restarts the timer, so only the last keystroke in a burst triggers a lookup
+        searchDebounce = new Timer(DEBOUNCE_MS, e -> {
+            showSuggestions();
+            performSearch();
+        });
+        searchDebounce.setRepeats(false);
+        suggestionPopup.setFocusable(false);
+
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { performSearch(); }
-            public void removeUpdate(DocumentEvent e) { performSearch(); }
-            public void changedUpdate(DocumentEvent e) { performSearch(); }
+            public void insertUpdate(DocumentEvent e) { scheduleSearch(); }
+            public void removeUpdate(DocumentEvent e) { scheduleSearch(); }
+            public void changedUpdate(DocumentEvent e) { scheduleSearch(); }
         });
 
         resultTable.addMouseListener(new MouseAdapter() {
@@ -116,13 +143,86 @@ public class BookCatalogPanel extends JPanel {
         });
     }
 
+    private void scheduleSearch() {
+        if (!applyingSuggestion) {
+            searchDebounce.restart();
+        }
+    }
+
+    private void showSuggestions() {
+        suggestionPopup.setVisible(false);
+        suggestionPopup.removeAll();
+
+        String prefix = searchField.getText().trim();
+        if (prefix.isEmpty() || !searchField.isShowing() || !AutocompleteIndex.getInstance().isReady()) {
+            return;
+        }
+
+        List<AutocompleteIndex.Suggestion> suggestions =
+                AutocompleteIndex.getInstance().suggest(prefix, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            return;
+        }
+
+        for (AutocompleteIndex.Suggestion s : suggestions) {
+            JMenuItem item = new JMenuItem(s.toString());
+            item.addActionListener(e -> applySuggestion(s));
+            suggestionPopup.add(item);
+        }
+        suggestionPopup.show(searchField, 0, searchField.getHeight());
+    }
+
+    private void applySuggestion(AutocompleteIndex.Suggestion s) {
+        applyingSuggestion = true;
+        try {
+            searchField.setText(s.getText());
+            searchType.setSelectedItem(s.getKind());
+        } finally {
+            applyingSuggestion = false;
+        }
+        suggestionPopup.setVisible(false);
+        performSearch();
+    }
+
     private void performSearch() {
         String keyword = searchField.getText().trim();
         String type = (String) searchType.getSelectedItem();
+        moreBtn.setEnabled(false);
 
-        List<Book> books = bookService.searchBooks(keyword, type);
-        model.setRowCount(0);
+        if (keyword.isEmpty()) {
+            // Browsing the whole catalog: page through it by title instead of loading everything
+            searchTask.run(this, () -> bookService.searchBooksPage(null, type, null, 0, PAGE_SIZE, false), page -> {
+                model.setRowCount(0);
+                showPage(page);
+            });
+            return;
+        }
 
+        searchTask.run(this, () -> bookService.searchBooks(keyword, type), books -> {
+            model.setRowCount(0);
+            lastPage = null;
+            addRows(books);
+        });
+    }
+
+    private void loadNextPage() {
+        if (lastPage == null || !lastPage.hasMore()) {
+            return;
+        }
+        String type = (String) searchType.getSelectedItem();
+        BookPage from = lastPage;
+        moreBtn.setEnabled(false);
+        searchTask.run(this, () -> bookService.searchBooksPage(null, type, from.getNextTitle(),
+                from.getNextBookId(), PAGE_SIZE, false), this::showPage);
+    }
+
+    private void showPage(BookPage page) {
+        lastPage = page;
+        addRows(page.getBooks());
+        moreBtn.setEnabled(page.hasMore());
+    }
+
+    private void addRows(List<Book> books) {
         for (Book b : books) {
             String avail = b.getAvailableCopies() > 0 ? "Available" : "Not Available";
             model.addRow(new Object[]{b.getIsbn(), b.getTitle(), b.getAuthor(), b.getCategory(), avail});
@@ -130,8 +230,10 @@ public class BookCatalogPanel extends JPanel {
     }
 
     private void showBookDetails(String isbn) {
-        Book b = bookService.getBookByIsbn(isbn);
+        BackgroundTasks.run(this, () -> bookService.getBookByIsbn(isbn), this::showBookDetails);
+    }
 
+    private void showBookDetails(Book b) {
         if (b == null) {
             JOptionPane.showMessageDialog(this, "Book not found!", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -0,0 +1,23 @@
+package librarysystem;
+
+import java.util.List;
+
+// One page of a title-ordered catalog listing plus the keyset cursor for the next page.
+public class BookPage {
+    private final List<Book> books;
+    private final boolean hasMore;
+    private final String nextTitle;
+    private final int nextBookId;
+
+    public BookPage(List<Book> books, boolean hasMore, String nextTitle, int nextBookId) {
+        this.books = books;
+        this.hasMore = hasMore;
+        this.nextTitle = nextTitle;
+        this.nextBookId = nextBookId;
+    }
+
+    public List<Book> getBooks() { return books; }
+    public boolean hasMore() { return hasMore; }
+    public String getNextTitle() { return nextTitle; }
+    public int getNextBookId() { return nextBookId; }
+}
@@ -3,23 +3,33 @@ package librarysystem;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BookService {
 
+    private static final int MAX_RESULTS = 500;
+
     public List<Book> searchBooks(String keyword, String type) {
         List<Book> results = new ArrayList<>();
 
         String queryBase =
                 "SELECT book_id, isbn, title, author, category, publication_year, description, " +
-                " (SELECT COUNT(*) FROM copies c WHERE c.book_id = b.book_id AND c.status='AVAILABLE') AS available_copies, " +
-                " (SELECT COUNT(*) FROM copies c2 WHERE c2.book_id = b.book_id) AS total_copies " +
+                " available_copies, total_copies " +
                 " FROM books b ";
 
         String where = "";
         if (keyword == null) keyword = "";
         keyword = keyword.trim();
 
+        if (!keyword.isEmpty() && CatalogIndex.getInstance().isReady()) {
+            List<Book> indexed = searchIndexed(keyword, type);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+
         if (!keyword.isEmpty()) {
             if ("All".equalsIgnoreCase(type)) {
                 where = " WHERE title LIKE ? OR author LIKE ? OR isbn LIKE ? OR category LIKE ?";
@@ -34,7 +44,7 @@ public class BookService {
             }
         }
 
-        String finalQuery = queryBase + where + " ORDER BY title LIMIT 500";
+        String finalQuery = queryBase + where + " ORDER BY title LIMIT " + MAX_RESULTS;
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(finalQuery)) {
@@ -75,12 +85,156 @@ public class BookService {
         return results;
     }
 
+    // Title-ordered page that seeks past (afterTitle, afterBookId) instead of using OFFSET,
+    // so every page costs the same no matter how deep the caller has scrolled.
+    // Pass afterTitle = null for the first page.
+    public BookPage searchBooksPage(String keyword, String type, String afterTitle, int afterBookId,
+                                    int pageSize, boolean includeDescription) {
+        List<Book> results = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT book_id, isbn, title, author, category, publication_year, " +
+                (includeDescription ? "description, " : "") +
+                "available_copies, total_copies FROM books WHERE 1 = 1");
+
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            String p = "%" + keyword.trim() + "%";
+            if (type == null || "All".equalsIgnoreCase(type)) {
+                sql.append(" AND (title LIKE ? OR author LIKE ? OR isbn LIKE ? OR category LIKE ?)");
+                params.add(p);
+                params.add(p);
+                params.add(p);
+                params.add(p);
+            } else {
+                String col = switch (type) {
+                    case "Title" -> "title";
+                    case "Author" -> "author";
+                    case "ISBN" -> "isbn";
+                    default -> "category";
+                };
+                sql.append(" AND ").append(col).append(" LIKE ?");
+                params.add(p);
+            }
+        }
+
+        if (afterTitle != null) {
+            // Spelled out rather than (title, book_id) > (?, ?), which MySQL often cannot
+            // turn into a range on idx_books_title
+            sql.append(" AND (title > ? OR (title = ? AND book_id > ?))");
+        }
+        // Fetch one extra row to learn whether another page exists
+        sql.append(" ORDER BY title, book_id LIMIT ?");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            for (String p : params) {
+                ps.setString(i++, p);
+            }
+            if (afterTitle != null) {
+                ps.setString(i++, afterTitle);
+                ps.setString(i++, afterTitle);
+                ps.setInt(i++, afterBookId);
+            }
+            ps.setInt(i, pageSize + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    results.add(
+                            new Book(
+                                    rs.getInt("book_id"),
+                                    rs.getString("isbn"),
+                                    rs.getString("title"),
+                                    rs.getString("author"),
+                                    rs.getString("category"),
+                                    rs.getInt("publication_year"),
+                                    includeDescription ? rs.getString("description") : null,
+                                    rs.getInt("total_copies"),
+                                    rs.getInt("available_copies")
+                            )
+                    );
+                }
+            }
+
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+
+        boolean hasMore = results.size() > pageSize;
+        if (hasMore) {
+            results.remove(results.size() - 1);
+        }
+        Book last = results.isEmpty() ? null : results.get(results.size() - 1);
+        return new BookPage(results, hasMore,
+                last == null ? null : last.getTitle(),
+                last == null ? 0 : last.getBookId());
+    }
+
+    // Ranked keyword search answered by the in-memory index; only the matching rows are read back.
+    // Returns null when the index cannot answer the query in full.
+    private List<Book> searchIndexed(String keyword, String type) {
+        List<Book> results = new ArrayList<>();
+        List<Integer> ids = CatalogIndex.getInstance().search(keyword, type, MAX_RESULTS);
+        if (ids == null) {
+            return null;
+        }
+        if (ids.isEmpty()) {
+            return results;
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT book_id, isbn, title, author, category, publication_year, description, " +
+                " available_copies, total_copies FROM books WHERE book_id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+
+        Map<Integer, Book> byId = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < ids.size(); i++) {
+                ps.setInt(i + 1, ids.get(i));
+            }
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                byId.put(rs.getInt("book_id"),
+                        new Book(
+                                rs.getInt("book_id"),
+                                rs.getString("isbn"),
+                                rs.getString("title"),
+                                rs.getString("author"),
+                                rs.getString("category"),
+                                rs.getInt("publication_year"),
+                                rs.getString("description"),
+                                rs.getInt("total_copies"),
+                                rs.getInt("available_copies")
+                        )
+                );
+            }
+
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+
+        for (Integer id : ids) {
+            Book b = byId.get(id);
+            if (b != null) {
+                results.add(b);
+            }
+        }
+        return results;
+    }
+
     public Book getBookByIsbn(String isbn) {
 
         String q =
                 "SELECT book_id, isbn, title, author, category, publication_year, description, " +
-                " (SELECT COUNT(*) FROM copies c WHERE c.book_id = b.book_id AND c.status='AVAILABLE') AS available_copies, " +
-                " (SELECT COUNT(*) FROM copies c2 WHERE c2.book_id = b.book_id) AS total_copies " +
+                " available_copies, total_copies " +
                 " FROM books b WHERE isbn = ? LIMIT 1";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -110,6 +264,57 @@ public class BookService {
 
         return null;
     }
-}
 
+    public String addBook(String isbn, String title, String author, String category, int year) {
+        String sql = "INSERT INTO books (isbn, title, author, category, publication_year) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setString(1, isbn);
+            ps.setString(2, title);
+            ps.setString(3, author);
+            ps.setString(4, category);
+            ps.setInt(5, year);
+            ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    CatalogIndex.getInstance().addBook(keys.getInt(1), isbn, title, author, category);
+                    AutocompleteIndex.getInstance().addBook(keys.getInt(1), title, author);
+                }
+            }
+            return "SUCCESS: Book added.";
+
+        } catch (SQLException e) {
+            System.err.println("Error adding book: " + e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    public String deleteBook(int bookId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM books WHERE book_id = ?")) {
+            ps.setInt(1, bookId);
+            if (ps.executeUpdate() == 0) {
+                return "FAIL: Book not found.";
+            }
+            CatalogIndex.getInstance().removeBook(bookId);
+            AutocompleteIndex.getInstance().removeBook(bookId);
+            return "SUCCESS: Book deleted.";
 
+        } catch (SQLException e) {
+            System.err.println("Error deleting book: " + e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    // Rows for the catalog tables (Manage Books, View All Books), loaded lazily by LazyTableModel
+    public LazyTableModel.RowSource getBooksRowSource() {
+        return new SqlRowSource(
+                "book_id, isbn, title, author, category, publication_year",
+                "books",
+                new String[]{"book_id", "isbn", "title", "author", "category", "publication_year"},
+                new String[]{"title", "author", "isbn", "category"},
+                "book_id");
+    }
+}
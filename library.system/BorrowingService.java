@@ -1,112 +1,582 @@
 package librarysystem;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class BorrowingService {
 
     private static final int LOAN_PERIOD_DAYS = 14;
+    private static final int MAX_CHECKOUT_ATTEMPTS = 5;
+    private static final int MAX_ACTIVE_LOANS = Integer.getInteger("library.maxLoans", 5);
+    private static final BigDecimal MAX_UNPAID_FINES =
+            new BigDecimal(System.getProperty("library.maxUnpaidFines", "10.00"));
 
     
     public String checkOutBook(int bookId, int memberId) {
         try (Connection conn = DatabaseConnection.getConnection()) {
-            
-            // 1. Find an available copy of the book
-            String findCopySql = "SELECT copy_id FROM copies WHERE book_id = ? AND status = 'AVAILABLE' LIMIT 1";
-            PreparedStatement findCopyStmt = conn.prepareStatement(findCopySql);
-            findCopyStmt.setInt(1, bookId);
-            ResultSet copyRs = findCopyStmt.executeQuery();
-            
-            if (!copyRs.next()) {
-                return "FAIL: No available copies of this book.";
-            }
-            
-            int copyId = copyRs.getInt("copy_id");
-            
-            // 2. Check if member already has this book checked out
-            String checkActiveLoanSql = "SELECT loan_id FROM loans l " +
-                                      "JOIN copies c ON l.copy_id = c.copy_id " +
-                                      "WHERE c.book_id = ? AND l.member_id = ? AND l.return_date IS NULL";
-            PreparedStatement checkLoanStmt = conn.prepareStatement(checkActiveLoanSql);
-            checkLoanStmt.setInt(1, bookId);
-            checkLoanStmt.setInt(2, memberId);
-            if (checkLoanStmt.executeQuery().next()) {
-                return "FAIL: Member already has this book checked out.";
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    String result = tryCheckOut(conn, bookId, memberId);
+                    if (result != null) {
+                        return result;
+                    }
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (!isRetryable(e) || attempt >= MAX_CHECKOUT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                if (attempt >= MAX_CHECKOUT_ATTEMPTS) {
+                    return "FAIL: No available copies of this book.";
+                }
+                backOff(attempt);
             }
-            
-            // 3. Create the loan record
-            Date dueDate = calculateDueDate();
-            String insertLoanSql = "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, ?)";
-            PreparedStatement insertStmt = conn.prepareStatement(insertLoanSql);
-            insertStmt.setInt(1, copyId);
-            insertStmt.setInt(2, memberId);
-            insertStmt.setDate(3, new java.sql.Date(dueDate.getTime()));
-            insertStmt.executeUpdate();
-            
-            // 4. Update copy status
-            String updateCopySql = "UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ?";
-            PreparedStatement updateCopyStmt = conn.prepareStatement(updateCopySql);
-            updateCopyStmt.setInt(1, copyId);
-            updateCopyStmt.executeUpdate();
-            
-            return "SUCCESS: Book checked out. Due date: " + dueDate;
-            
         } catch (SQLException e) {
             System.err.println("Database error during checkout: " + e.getMessage());
             return "ERROR: Database access failed.";
         }
     }
+
+    // One checkout transaction. Returns null when every free copy was locked by
+    // concurrent checkouts that have not committed yet, so the caller can retry.
+    private String tryCheckOut(Connection conn, int bookId, int memberId) throws SQLException {
+        conn.setAutoCommit(false);
+
+        // 1. Serialize checkouts per member so the duplicate-loan and limit checks cannot
+        //    race, and read the member's running totals for the limits
+        try (PreparedStatement ps = conn.prepareStatement(lockMemberSql())) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    conn.rollback();
+                    return "FAIL: Member not found.";
+                }
+                String refusal = checkLimits(rs);
+                if (refusal != null) {
+                    conn.rollback();
+                    return refusal;
+                }
+            }
+        }
+
+        // 2. Check if member already has this book checked out
+        String checkActiveLoanSql = "SELECT loan_id FROM loans l " +
+                                  "JOIN copies c ON l.copy_id = c.copy_id " +
+                                  "WHERE c.book_id = ? AND l.member_id = ? AND l.return_date IS NULL";
+        try (PreparedStatement ps = conn.prepareStatement(checkActiveLoanSql)) {
+            ps.setInt(1, bookId);
+            ps.setInt(2, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    conn.rollback();
+                    return "FAIL: Member already has this book checked out.";
+                }
+            }
+        }
+
+        // 3. A member whose hold is READY takes the copy reserved for them. That copy was
+        //    never counted in available_copies, so the counter is left alone.
+        int[] readyHold = ReservationService.lockReadyHold(conn, bookId, memberId);
+        if (readyHold != null) {
+            String takeReservedSql = "UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ? AND status = 'READY_FOR_HOLD'";
+            try (PreparedStatement ps = conn.prepareStatement(takeReservedSql)) {
+                ps.setInt(1, readyHold[1]);
+                if (ps.executeUpdate() == 1) {
+                    ReservationService.fulfillHold(conn, readyHold[0]);
+                    Date dueDate = calculateDueDate();
+                    insertLoan(conn, readyHold[1], memberId, dueDate);
+                    MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, 1, -1);
+                    conn.commit();
+                    return "SUCCESS: Book checked out (reserved copy). Due date: " + dueDate;
+                }
+            }
+        }
+
+        // 4. Claim an available copy. SKIP LOCKED lets concurrent checkouts of the same
+        //    title each take a different copy instead of queueing behind one row lock.
+        String claimCopySql = "SELECT copy_id FROM copies WHERE book_id = ? AND status = 'AVAILABLE' " +
+                              "ORDER BY copy_id LIMIT 1 FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+        int copyId;
+        try (PreparedStatement ps = conn.prepareStatement(claimCopySql)) {
+            ps.setInt(1, bookId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    conn.rollback();
+                    return hasAvailableCopies(conn, bookId) ? null : "FAIL: No available copies of this book.";
+                }
+                copyId = rs.getInt("copy_id");
+            }
+        }
+
+        // 5. Update copy status; the status guard is a second line of defence against double issue
+        String updateCopySql = "UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ? AND status = 'AVAILABLE'";
+        try (PreparedStatement ps = conn.prepareStatement(updateCopySql)) {
+            ps.setInt(1, copyId);
+            if (ps.executeUpdate() != 1) {
+                conn.rollback();
+                return null;
+            }
+        }
+
+        // 6. Create the loan record
+        Date dueDate = calculateDueDate();
+        insertLoan(conn, copyId, memberId, dueDate);
+        MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, 1, 0);
+
+        // 7. Keep the denormalized availability counter in step. This touches the shared
+        //    books row, so it goes last to keep that lock as short as possible.
+        adjustAvailableCopies(conn, bookId, -1);
+
+        conn.commit();
+        return "SUCCESS: Book checked out. Due date: " + dueDate;
+    }
+
+    private void insertLoan(Connection conn, int copyId, int memberId, Date dueDate) throws SQLException {
+        String insertLoanSql = "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(insertLoanSql)) {
+            ps.setInt(1, copyId);
+            ps.setInt(2, memberId);
+            ps.setDate(3, new java.sql.Date(dueDate.getTime()));
+            ps.executeUpdate();
+        }
+    }
+
+    // Locks the member row only; member_summary is read as of the lock, without blocking
+    // the returns and fine payments that update it
+    private static String lockMemberSql() {
+        return "SELECT m.member_id, COALESCE(s.unpaid_fines, 0) AS unpaid_fines, " +
+               "COALESCE(s.active_loans, 0) AS active_loans FROM members m " +
+               "LEFT JOIN member_summary s ON s.member_id = m.member_id " +
+               "WHERE m.member_id = ?" + DatabaseConnection.backend().forUpdateOf("m");
+    }
+
+    private static String checkLimits(ResultSet member) throws SQLException {
+        BigDecimal unpaid = member.getBigDecimal("unpaid_fines");
+        if (unpaid.compareTo(MAX_UNPAID_FINES) >= 0) {
+            return "FAIL: Member has $" + unpaid + " in unpaid fines.";
+        }
+        if (member.getInt("active_loans") >= MAX_ACTIVE_LOANS) {
+            return "FAIL: Member has reached the limit of " + MAX_ACTIVE_LOANS + " loans.";
+        }
+        return null;
+    }
+
+    // Non-locking read: sees AVAILABLE copies that other transactions hold but may still release
+    private boolean hasAvailableCopies(Connection conn, int bookId) throws SQLException {
+        String sql = "SELECT 1 FROM copies WHERE book_id = ? AND status = 'AVAILABLE' LIMIT 1";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Deadlocks and lock wait timeouts are safe to retry from the start
+    private static boolean isRetryable(SQLException e) {
+        String state = e.getSQLState();
+        return "40001".equals(state) || e.getErrorCode() == 1205 || e.getErrorCode() == 1213;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5, 20) * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
     
    
     public String returnBook(int bookId, int memberId) {
+        Hold promoted;
         try (Connection conn = DatabaseConnection.getConnection()) {
-            
-            // 1. Find the active loan
-            String findLoanSql = "SELECT l.loan_id, l.copy_id FROM loans l " +
-                               "JOIN copies c ON l.copy_id = c.copy_id " +
-                               "WHERE c.book_id = ? AND l.member_id = ? AND l.return_date IS NULL";
-            PreparedStatement findLoanStmt = conn.prepareStatement(findLoanSql);
-            findLoanStmt.setInt(1, bookId);
-            findLoanStmt.setInt(2, memberId);
-            ResultSet loanRs = findLoanStmt.executeQuery();
-            
-            if (!loanRs.next()) {
-                return "FAIL: No active loan found for this book and member.";
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    conn.setAutoCommit(false);
+
+                    // 1. Find and lock the active loan, so two desks cannot return it twice
+                    String findLoanSql = "SELECT l.loan_id, l.copy_id FROM loans l " +
+                                       "JOIN copies c ON l.copy_id = c.copy_id " +
+                                       "WHERE c.book_id = ? AND l.member_id = ? AND l.return_date IS NULL " +
+                                       "FOR UPDATE";
+                    int loanId;
+                    int copyId;
+                    try (PreparedStatement ps = conn.prepareStatement(findLoanSql)) {
+                        ps.setInt(1, bookId);
+                        ps.setInt(2, memberId);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            if (!rs.next()) {
+                                conn.rollback();
+                                return "FAIL: No active loan found for this book and member.";
+                            }
+                            loanId = rs.getInt("loan_id");
+                            copyId = rs.getInt("copy_id");
+                        }
+                    }
+
+                    // 2. Update loan with return date
+                    String updateLoanSql = "UPDATE loans SET return_date = CURRENT_DATE WHERE loan_id = ?";
+                    try (PreparedStatement ps = conn.prepareStatement(updateLoanSql)) {
+                        ps.setInt(1, loanId);
+                        ps.executeUpdate();
+                    }
+
+                    // 3. In the same transaction, reserve the copy for the next hold in line or
+                    //    put it back on the shelf (which also bumps available_copies)
+                    promoted = ReservationService.releaseCopy(conn, bookId, copyId);
+                    MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, -1, 0);
+                    conn.commit();
+                    break;
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (!isRetryable(e) || attempt >= MAX_CHECKOUT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                backOff(attempt);
             }
-            
-            int loanId = loanRs.getInt("loan_id");
-            int copyId = loanRs.getInt("copy_id");
-            
-            // 2. Update loan with return date
-            String updateLoanSql = "UPDATE loans SET return_date = CURRENT_DATE WHERE loan_id = ?";
-            PreparedStatement updateLoanStmt = conn.prepareStatement(updateLoanSql);
-            updateLoanStmt.setInt(1, loanId);
-            updateLoanStmt.executeUpdate();
-            
-            // 3. Update copy status back to available
-            String updateCopySql = "UPDATE copies SET status = 'AVAILABLE' WHERE copy_id = ?";
-            PreparedStatement updateCopyStmt = conn.prepareStatement(updateCopySql);
-            updateCopyStmt.setInt(1, copyId);
-            updateCopyStmt.executeUpdate();
-            
-            Hold nextHold = ReservationService.promoteNextHoldToReady(bookId);
-            if (nextHold != null) {
-              System.out.println("Next hold for book #" + bookId +
-                       " is now READY for member #" + nextHold.getMemberId());
-              }
-            
-            return "SUCCESS: Book returned successfully.";
-            
         } catch (SQLException e) {
             System.err.println("Database error during return: " + e.getMessage());
             return "ERROR: Database access failed.";
         }
+
+        holdPromoted(promoted);
+        return "SUCCESS: Book returned successfully.";
     }
+
+
+    // Kiosk checkout: the whole basket goes through one transaction. Returns a result per
+    // book id, in basket order, using the same SUCCESS/FAIL/ERROR messages as checkOutBook.
+    public Map<Integer, String> checkOutBooks(int memberId, List<Integer> bookIds) {
+        Map<Integer, String> results = new LinkedHashMap<>();
+        List<Integer> basket = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        if (basket.isEmpty()) {
+            return results;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int attempt = 1; ; attempt++) {
+                results.clear();
+                try {
+                    checkOutBasket(conn, memberId, basket, results);
+                    return results;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (!isRetryable(e) || attempt >= MAX_CHECKOUT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                backOff(attempt);
+            }
+        } catch (SQLException e) {
+            System.err.println("Database error during batch checkout: " + e.getMessage());
+            results.clear();
+            for (int bookId : basket) {
+                results.put(bookId, "ERROR: Database access failed.");
+            }
+            return results;
+        }
+    }
+
+    private void checkOutBasket(Connection conn, int memberId, List<Integer> basket,
+                                Map<Integer, String> results) throws SQLException {
+        conn.setAutoCommit(false);
+
+        int activeLoans;
+        try (PreparedStatement ps = conn.prepareStatement(lockMemberSql())) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                String refusal = rs.next() ? checkLimits(rs) : "FAIL: Member not found.";
+                if (refusal != null) {
+                    conn.rollback();
+                    for (int bookId : basket) {
+                        results.put(bookId, refusal);
+                    }
+                    return;
+                }
+                activeLoans = rs.getInt("active_loans");
+            }
+        }
+
+        // Books from the basket the member already has on loan
+        Set<Integer> onLoan = new HashSet<>();
+        String activeSql = "SELECT DISTINCT c.book_id FROM loans l JOIN copies c ON l.copy_id = c.copy_id " +
+                           "WHERE l.member_id = ? AND l.return_date IS NULL AND c.book_id IN (" + placeholders(basket.size()) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(activeSql)) {
+            ps.setInt(1, memberId);
+            bindInts(ps, 2, basket);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    onLoan.add(rs.getInt(1));
+                }
+            }
+        }
+
+        // Books past the member's loan limit are refused, in basket order
+        Set<Integer> overLimit = new HashSet<>();
+        int slots = MAX_ACTIVE_LOANS - activeLoans;
+        for (int bookId : basket) {
+            if (!onLoan.contains(bookId) && slots-- <= 0) {
+                overLimit.add(bookId);
+            }
+        }
+
+        // Copies reserved for the member's READY holds are handed over first
+        Map<Integer, int[]> reserved = new HashMap<>(); // book_id -> {hold_id, copy_id}
+        String readySql = "SELECT book_id, hold_id, copy_id FROM holds " +
+                          "WHERE member_id = ? AND status = 'READY' AND copy_id IS NOT NULL AND book_id IN (" +
+                          placeholders(basket.size()) + ") FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(readySql)) {
+            ps.setInt(1, memberId);
+            bindInts(ps, 2, basket);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!onLoan.contains(rs.getInt(1)) && !overLimit.contains(rs.getInt(1))) {
+                        reserved.put(rs.getInt(1), new int[]{rs.getInt(2), rs.getInt(3)});
+                    }
+                }
+            }
+        }
+
+        List<Integer> wanted = new ArrayList<>();
+        for (int bookId : basket) {
+            if (!onLoan.contains(bookId) && !overLimit.contains(bookId) && !reserved.containsKey(bookId)) {
+                wanted.add(bookId);
+            }
+        }
+
+        // Claim the lowest available copy of every wanted book in one statement. A copy that
+        // another desk holds right now is skipped; those books fall back to a per-book claim.
+        Map<Integer, Integer> claimed = new HashMap<>();
+        if (!wanted.isEmpty()) {
+            String claimSql = "SELECT copy_id, book_id FROM copies " +
+                              "WHERE status = 'AVAILABLE' AND copy_id IN (" +
+                              "SELECT MIN(copy_id) FROM copies WHERE status = 'AVAILABLE' AND book_id IN (" +
+                              placeholders(wanted.size()) + ") GROUP BY book_id) " +
+                              "FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+            try (PreparedStatement ps = conn.prepareStatement(claimSql)) {
+                bindInts(ps, 1, wanted);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        claimed.put(rs.getInt("book_id"), rs.getInt("copy_id"));
+                    }
+                }
+            }
+
+            String claimOneSql = "SELECT copy_id FROM copies WHERE book_id = ? AND status = 'AVAILABLE' " +
+                                 "ORDER BY copy_id LIMIT 1 FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+            for (int bookId : wanted) {
+                if (claimed.containsKey(bookId)) {
+                    continue;
+                }
+                try (PreparedStatement ps = conn.prepareStatement(claimOneSql)) {
+                    ps.setInt(1, bookId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            claimed.put(bookId, rs.getInt(1));
+                        }
+                    }
+                }
+            }
+        }
+
+        Date dueDate = calculateDueDate();
+        if (!reserved.isEmpty()) {
+            try (PreparedStatement updateCopy = conn.prepareStatement(
+                         "UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ?");
+                 PreparedStatement fulfill = conn.prepareStatement(
+                         "UPDATE holds SET status = 'FULFILLED' WHERE hold_id = ?");
+                 PreparedStatement insertLoan = conn.prepareStatement(
+                         "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, ?)")) {
+
+                for (int[] hold : reserved.values()) {
+                    updateCopy.setInt(1, hold[1]);
+                    updateCopy.addBatch();
+                    fulfill.setInt(1, hold[0]);
+                    fulfill.addBatch();
+                    insertLoan.setInt(1, hold[1]);
+                    insertLoan.setInt(2, memberId);
+                    insertLoan.setDate(3, new java.sql.Date(dueDate.getTime()));
+                    insertLoan.addBatch();
+                }
+                updateCopy.executeBatch();
+                fulfill.executeBatch();
+                insertLoan.executeBatch();
+            }
+        }
+        if (!claimed.isEmpty()) {
+            try (PreparedStatement updateCopy = conn.prepareStatement(
+                         "UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ?");
+                 PreparedStatement insertLoan = conn.prepareStatement(
+                         "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, ?)");
+                 PreparedStatement counter = conn.prepareStatement(
+                         "UPDATE books SET available_copies = available_copies - 1 WHERE book_id = ?")) {
+
+                for (Map.Entry<Integer, Integer> e : claimed.entrySet()) {
+                    updateCopy.setInt(1, e.getValue());
+                    updateCopy.addBatch();
+
+                    insertLoan.setInt(1, e.getValue());
+                    insertLoan.setInt(2, memberId);
+                    insertLoan.setDate(3, new java.sql.Date(dueDate.getTime()));
+                    insertLoan.addBatch();
+
+                    counter.setInt(1, e.getKey());
+                    counter.addBatch();
+                }
+                updateCopy.executeBatch();
+                insertLoan.executeBatch();
+                counter.executeBatch();
+            }
+        }
+        if (!reserved.isEmpty() || !claimed.isEmpty()) {
+            MemberSummary.adjust(conn, memberId, BigDecimal.ZERO,
+                    reserved.size() + claimed.size(), -reserved.size());
+        }
+
+        conn.commit();
+
+        for (int bookId : basket) {
+            if (onLoan.contains(bookId)) {
+                results.put(bookId, "FAIL: Member already has this book checked out.");
+            } else if (overLimit.contains(bookId)) {
+                results.put(bookId, "FAIL: Member has reached the limit of " + MAX_ACTIVE_LOANS + " loans.");
+            } else if (claimed.containsKey(bookId) || reserved.containsKey(bookId)) {
+                results.put(bookId, "SUCCESS: Book checked out. Due date: " + dueDate);
+            } else {
+                results.put(bookId, "FAIL: No available copies of this book.");
+            }
+        }
+    }
+
+    // Kiosk return: closes every matching active loan of the member in one transaction,
+    // retried from the start on a deadlock or lock wait timeout like checkOutBooks.
+    public Map<Integer, String> returnBooks(int memberId, List<Integer> bookIds) {
+        Map<Integer, String> results = new LinkedHashMap<>();
+        List<Integer> basket = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        if (basket.isEmpty()) {
+            return results;
+        }
+
+        Set<Integer> returned = new HashSet<>();
+        List<Hold> promoted = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int attempt = 1; ; attempt++) {
+                returned.clear();
+                promoted.clear();
+                try {
+                    returnBasket(conn, memberId, basket, returned, promoted);
+                    break;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (!isRetryable(e) || attempt >= MAX_CHECKOUT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                backOff(attempt);
+            }
+        } catch (SQLException e) {
+            System.err.println("Database error during batch return: " + e.getMessage());
+            for (int bookId : basket) {
+                results.put(bookId, "ERROR: Database access failed.");
+            }
+            return results;
+        }
+
+        for (Hold hold : promoted) {
+            holdPromoted(hold);
+        }
+        for (int bookId : basket) {
+            if (returned.contains(bookId)) {
+                results.put(bookId, "SUCCESS: Book returned successfully.");
+            } else {
+                results.put(bookId, "FAIL: No active loan found for this book and member.");
+            }
+        }
+        return results;
+    }
+
+    private void returnBasket(Connection conn, int memberId, List<Integer> basket,
+                              Set<Integer> returned, List<Hold> promoted) throws SQLException {
+        conn.setAutoCommit(false);
+
+        List<int[]> loans = new ArrayList<>(); // {loan_id, copy_id, book_id}
+        String findSql = "SELECT l.loan_id, l.copy_id, c.book_id FROM loans l " +
+                         "JOIN copies c ON l.copy_id = c.copy_id " +
+                         "WHERE l.member_id = ? AND l.return_date IS NULL AND c.book_id IN (" +
+                         placeholders(basket.size()) + ") FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(findSql)) {
+            ps.setInt(1, memberId);
+            bindInts(ps, 2, basket);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    loans.add(new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3)});
+                }
+            }
+        }
+
+        if (!loans.isEmpty()) {
+            try (PreparedStatement updateLoan = conn.prepareStatement(
+                         "UPDATE loans SET return_date = CURRENT_DATE WHERE loan_id = ?")) {
+                for (int[] loan : loans) {
+                    updateLoan.setInt(1, loan[0]);
+                    updateLoan.addBatch();
+                    returned.add(loan[2]);
+                }
+                updateLoan.executeBatch();
+            }
+            // Each copy goes to the next hold in line or back on the shelf
+            for (int[] loan : loans) {
+                Hold hold = ReservationService.releaseCopy(conn, loan[2], loan[1]);
+                if (hold != null) {
+                    promoted.add(hold);
+                }
+            }
+            MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, -loans.size(), 0);
+        }
+        conn.commit();
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private static void bindInts(PreparedStatement ps, int firstIndex, List<Integer> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            ps.setInt(firstIndex + i, values.get(i));
+        }
+    }    
     
-    
+    // Owner of a loan, or -1 if there is no such loan
+    public int getLoanMemberId(int loanId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT member_id FROM loans WHERE loan_id = ?")) {
+            ps.setInt(1, loanId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading loan: " + e.getMessage());
+            return -1;
+        }
+    }
+
     public String renewLoan(int loanId) {
         try (Connection conn = DatabaseConnection.getConnection()) {
             
@@ -146,38 +616,37 @@ public class BorrowingService {
     }
     
    
-    public String[][] getAllLoansData() {
-        List<String[]> loanData = new ArrayList<>();
-        
-        String sql = "SELECT l.loan_id, b.title, m.name, l.checkout_date, l.due_date, " +
-                    "CASE WHEN l.return_date IS NULL THEN 'Active' ELSE 'Returned' END as status " +
-                    "FROM loans l " +
-                    "JOIN copies c ON l.copy_id = c.copy_id " +
-                    "JOIN books b ON c.book_id = b.book_id " +
-                    "JOIN members m ON l.member_id = m.member_id " +
-                    "ORDER BY l.checkout_date DESC";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                String[] row = {
-                    String.valueOf(rs.getInt("loan_id")),
-                    rs.getString("title"),
-                    rs.getString("name"),
-                    rs.getDate("checkout_date").toString(),
-                    rs.getDate("due_date").toString(),
-                    rs.getString("status")
-                };
-                loanData.add(row);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Database error retrieving loans: " + e.getMessage());
+    // Rows for the librarian's loan list, loaded lazily by LazyTableModel
+    public LazyTableModel.RowSource getLoansRowSource() {
+        return new SqlRowSource(
+                "l.loan_id, b.title, m.name, l.checkout_date, l.due_date, " +
+                "CASE WHEN l.return_date IS NULL THEN 'Active' ELSE 'Returned' END AS status",
+                "loans l " +
+                "JOIN copies c ON l.copy_id = c.copy_id " +
+                "JOIN books b ON c.book_id = b.book_id " +
+                "JOIN members m ON l.member_id = m.member_id",
+                new String[]{"l.loan_id", "b.title", "m.name", "l.checkout_date", "l.due_date", "l.return_date"},
+                new String[]{"b.title", "m.name"},
+                "l.checkout_date DESC, l.loan_id DESC");
+    }
+    
+    private void adjustAvailableCopies(Connection conn, int bookId, int delta) throws SQLException {
+        String sql = "UPDATE books SET available_copies = available_copies + ? WHERE book_id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, delta);
+            ps.setInt(2, bookId);
+            ps.executeUpdate();
+        }
+    }
+    
+    // Called after commit: the promoted hold has left the pending queue
+    private void holdPromoted(Hold hold) {
+        if (hold != null) {
+            HoldQueueIndex.getInstance().remove(hold.getHoldId());
+            NotificationDispatcher.wakeUp();
+            System.out.println("Next hold for book #" + hold.getBookId() +
+                    " is now READY for member #" + hold.getMemberId());
         }
-        
-        return loanData.toArray(new String[0][]);
     }
     
     private Date calculateDueDate() {
@@ -0,0 +1,366 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over the searchable book fields. Every query token must
+// match (in any of the searched fields); the last token also matches as a prefix so
+// partially typed words still find results.
+public class CatalogIndex {
+
+    private static final String[] FIELDS = {"Title", "Author", "Category", "ISBN"};
+    private static final float[] FIELD_WEIGHTS = {3.0f, 2.0f, 1.0f, 4.0f};
+    private static final float PREFIX_WEIGHT = 0.5f;
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private static final CatalogIndex instance = new CatalogIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<TreeMap<String, Postings>> dictionaries = newDictionaries();
+    private Map<Integer, String[]> docs = new HashMap<>();
+    private volatile boolean ready;
+
+    // Changes made while a rebuild is reading the table; replayed after the swap
+    private List<Runnable> journal;
+
+    private CatalogIndex() {
+    }
+
+    public static CatalogIndex getInstance() {
+        return instance;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        String sql = "SELECT book_id, isbn, title, author, category FROM books ORDER BY book_id";
+
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Build off to the side so searches keep being served while the catalog loads
+        List<TreeMap<String, Postings>> newDicts = newDictionaries();
+        Map<Integer, String[]> newDocs = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.setFetchSize(DatabaseConnection.backend().streamingFetchSize()); // stream rows instead of buffering the catalog
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    indexDoc(newDicts, newDocs, rs.getInt("book_id"), rs.getString("title"),
+                            rs.getString("author"), rs.getString("category"), rs.getString("isbn"));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error building catalog index: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            dictionaries = newDicts;
+            docs = newDocs;
+            for (Runnable change : journal) {
+                change.run();
+            }
+            journal = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Catalog index built: " + newDocs.size() + " books in " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void addBook(int bookId, String isbn, String title, String author, String category) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> {
+                unindexDoc(bookId);
+                indexDoc(dictionaries, docs, bookId, title, author, category, isbn);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBook(int bookId) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> unindexDoc(bookId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    // Returns matching book ids, best match first, or null when the last token is a prefix of
+    // more than MAX_PREFIX_TERMS indexed words. Scoring only part of such an expansion would
+    // silently drop matches, so the caller answers those queries from the database instead.
+    public List<Integer> search(String query, String type, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] fields = fieldsFor(type);
+
+        lock.readLock().lock();
+        try {
+            String last = tokens.get(tokens.size() - 1);
+            if (prefixTermsExceed(last, fields, MAX_PREFIX_TERMS)) {
+                return null;
+            }
+
+            // Start from the rarest token so the candidate set is as small as possible
+            List<String> ordered = new ArrayList<>(new LinkedHashSet<>(tokens));
+            ordered.sort((a, b) -> Long.compare(
+                    documentFrequency(a, a.equals(last), fields),
+                    documentFrequency(b, b.equals(last), fields)));
+
+            Map<Integer, Float> scores = null;
+            for (String token : ordered) {
+                Map<Integer, Float> tokenScores = scoreToken(token, token.equals(last), fields, scores);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // AND semantics: keep only documents that matched every token so far
+                    Map<Integer, Float> merged = new HashMap<>(Math.max(16, tokenScores.size() * 2));
+                    for (Map.Entry<Integer, Float> e : tokenScores.entrySet()) {
+                        merged.put(e.getKey(), scores.get(e.getKey()) + e.getValue());
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            return topK(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long documentFrequency(String token, boolean prefix, int[] fields) {
+        long df = 0;
+        for (int f : fields) {
+            TreeMap<String, Postings> dict = dictionaries.get(f);
+            Postings exact = dict.get(token);
+            if (exact != null) {
+                df += exact.size;
+            }
+            if (prefix) {
+                for (Postings p : dict.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    df += p.size;
+                }
+            }
+        }
+        return df;
+    }
+
+    private Map<Integer, Float> scoreToken(String token, boolean prefix, int[] fields,
+                                           Map<Integer, Float> restrictTo) {
+        Map<Integer, Float> out = new HashMap<>();
+        for (int f : fields) {
+            TreeMap<String, Postings> dict = dictionaries.get(f);
+
+            Postings exact = dict.get(token);
+            if (exact != null) {
+                accumulate(out, exact, FIELD_WEIGHTS[f], restrictTo);
+            }
+            if (!prefix) {
+                continue;
+            }
+
+            NavigableMap<String, Postings> range = dict.subMap(token, false, token + Character.MAX_VALUE, false);
+            for (Postings p : range.values()) {
+                accumulate(out, p, FIELD_WEIGHTS[f] * PREFIX_WEIGHT, restrictTo);
+            }
+        }
+        return out;
+    }
+
+    // Counts the words that extend the prefix, stopping as soon as the count passes max
+    private boolean prefixTermsExceed(String prefix, int[] fields, int max) {
+        int expanded = 0;
+        for (int f : fields) {
+            for (String term : dictionaries.get(f).subMap(prefix, false, prefix + Character.MAX_VALUE, false).keySet()) {
+                if (++expanded > max) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void accumulate(Map<Integer, Float> out, Postings postings, float weight,
+                                   Map<Integer, Float> restrictTo) {
+        for (int i = 0; i < postings.size; i++) {
+            int id = postings.ids[i];
+            if (restrictTo == null || restrictTo.containsKey(id)) {
+                out.merge(id, weight, Float::sum);
+            }
+        }
+    }
+
+    private List<Integer> topK(Map<Integer, Float> scores, int limit) {
+        Comparator<Map.Entry<Integer, Float>> best = (a, b) -> {
+            int c = Float.compare(b.getValue(), a.getValue());
+            if (c != 0) return c;
+            c = String.CASE_INSENSITIVE_ORDER.compare(docs.get(a.getKey())[0], docs.get(b.getKey())[0]);
+            return c != 0 ? c : Integer.compare(a.getKey(), b.getKey());
+        };
+
+        // Bounded heap with the worst kept entry on top: O(n log k) instead of sorting every match
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(limit + 1, best.reversed());
+        for (Map.Entry<Integer, Float> e : scores.entrySet()) {
+            heap.offer(e);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<Integer, Float>> top = new ArrayList<>(heap);
+        top.sort(best);
+        List<Integer> ids = new ArrayList<>(top.size());
+        for (Map.Entry<Integer, Float> e : top) {
+            ids.add(e.getKey());
+        }
+        return ids;
+    }
+
+    private static void indexDoc(List<TreeMap<String, Postings>> dicts, Map<Integer, String[]> docs,
+                                 int bookId, String title, String author, String category, String isbn) {
+        String[] values = {nz(title), nz(author), nz(category), nz(isbn)};
+        docs.put(bookId, values);
+        for (int f = 0; f < FIELDS.length; f++) {
+            for (String token : tokenSet(f, values[f])) {
+                dicts.get(f).computeIfAbsent(token, k -> new Postings()).add(bookId);
+            }
+        }
+    }
+
+    private void unindexDoc(int bookId) {
+        String[] values = docs.remove(bookId);
+        if (values == null) {
+            return;
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            TreeMap<String, Postings> dict = dictionaries.get(f);
+            for (String token : tokenSet(f, values[f])) {
+                Postings p = dict.get(token);
+                if (p != null && p.remove(bookId) && p.size == 0) {
+                    dict.remove(token);
+                }
+            }
+        }
+    }
+
+    private static List<TreeMap<String, Postings>> newDictionaries() {
+        List<TreeMap<String, Postings>> dicts = new ArrayList<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            dicts.add(new TreeMap<>());
+        }
+        return dicts;
+    }
+
+    private static Set<String> tokenSet(int field, String value) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(value));
+        if (FIELDS[field].equals("ISBN") && !value.isEmpty()) {
+            tokens.add(value.replaceAll("[^0-9A-Za-z]", "").toLowerCase());
+        }
+        return tokens;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String part : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!part.isEmpty()) {
+                tokens.add(part);
+            }
+        }
+        return tokens;
+    }
+
+    private static int[] fieldsFor(String type) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equalsIgnoreCase(type)) {
+                return new int[]{i};
+            }
+        }
+        return new int[]{0, 1, 2, 3};
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+
+    // Growable int list of book ids. Ids arrive mostly in ascending order, deletes are rare.
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Fires many simultaneous checkouts at a book with only a few copies and verifies that
+// no copy ends up on two active loans. Needs the library_db database to be reachable,
+// or -Dlibrary.db=h2 to run against an in-memory database.
+public class CheckoutConcurrencyTest {
+
+    private static final int COPIES = 5;
+    private static final int DESKS = 40;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== CHECKOUT CONCURRENCY TEST ===");
+        MigrationRunner.migrate(false);
+
+        String tag = "CONC-" + System.currentTimeMillis();
+        int bookId = TestFixtures.createBook(tag, "Concurrency Test", COPIES);
+        List<Integer> members = TestFixtures.createMembers(tag, "Desk", DESKS);
+        boolean passed = false;
+
+        try {
+            System.out.println("\n1. " + DESKS + " desks checking out a book with " + COPIES + " copies:");
+            List<String> results = runConcurrently(bookId, members);
+            passed = verify(bookId, results);
+
+            System.out.println("\n2. The same member checking out the same book twice at once:");
+            returnAll(bookId, members);
+            List<Integer> sameMember = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                sameMember.add(members.get(0));
+            }
+            List<String> dupResults = runConcurrently(bookId, sameMember);
+            long ok = dupResults.stream().filter(r -> r.startsWith("SUCCESS")).count();
+            System.out.println("  Successful checkouts: " + ok + " (expected 1)");
+            passed &= ok == 1;
+
+        } finally {
+            TestFixtures.cleanUp(bookId, members);
+            DatabaseConnection.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (passed ? "PASSED" : "FAILED"));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static List<String> runConcurrently(int bookId, List<Integer> members) throws Exception {
+        ExecutorService desks = Executors.newFixedThreadPool(members.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+
+        for (int memberId : members) {
+            futures.add(desks.submit(() -> {
+                start.await();
+                return new BorrowingService().checkOutBook(bookId, memberId);
+            }));
+        }
+
+        long begin = System.currentTimeMillis();
+        start.countDown();
+        List<String> results = new ArrayList<>();
+        for (Future<String> f : futures) {
+            results.add(f.get(60, TimeUnit.SECONDS));
+        }
+        desks.shutdown();
+        System.out.println("  Finished in " + (System.currentTimeMillis() - begin) + " ms");
+        return results;
+    }
+
+    private static boolean verify(int bookId, List<String> results) throws SQLException {
+        long ok = results.stream().filter(r -> r.startsWith("SUCCESS")).count();
+        long errors = results.stream().filter(r -> r.startsWith("ERROR")).count();
+        System.out.println("  Successful checkouts: " + ok + " (expected " + COPIES + ")");
+        System.out.println("  Database errors: " + errors);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int doubleIssued = TestFixtures.queryInt(conn,
+                    "SELECT COUNT(*) FROM (SELECT l.copy_id FROM loans l JOIN copies c ON l.copy_id = c.copy_id " +
+                    "WHERE c.book_id = ? AND l.return_date IS NULL GROUP BY l.copy_id HAVING COUNT(*) > 1) d", bookId);
+            int activeLoans = TestFixtures.queryInt(conn,
+                    "SELECT COUNT(*) FROM loans l JOIN copies c ON l.copy_id = c.copy_id " +
+                    "WHERE c.book_id = ? AND l.return_date IS NULL", bookId);
+            int available = TestFixtures.queryInt(conn, "SELECT available_copies FROM books WHERE book_id = ?", bookId);
+
+            System.out.println("  Copies on more than one active loan: " + doubleIssued + " (expected 0)");
+            System.out.println("  Active loans: " + activeLoans + " (expected " + COPIES + ")");
+            System.out.println("  available_copies counter: " + available + " (expected 0)");
+
+            return ok == COPIES && errors == 0 && doubleIssued == 0 && activeLoans == COPIES && available == 0;
+        }
+    }
+
+    private static void returnAll(int bookId, List<Integer> members) {
+        BorrowingService service = new BorrowingService();
+        for (int memberId : members) {
+            service.returnBook(bookId, memberId);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package librarysystem;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long validationIntervalMs;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionReturned = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private int openCount;
+    private int waiters;
+    private boolean shutdown;
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowNanosTotal = new AtomicLong();
+    private final AtomicLong borrowNanosMax = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, int minIdle, long borrowTimeoutMs,
+                          long idleTimeoutMs, long maxLifetimeMs, long validationIntervalMs,
+                          int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.statementCacheSize = statementCacheSize;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, maxLifetimeMs) / 4);
+        housekeeper.scheduleWithFixedDelay(this::evictStale, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool has been shut down");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (openCount < maxSize) {
+                        openCount++;
+                        mustCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.incrementAndGet();
+                        throw new SQLException("Timed out after " + borrowTimeoutMs +
+                                " ms waiting for a database connection (pool size " + maxSize + ")", "08001");
+                    }
+                    waiters++;
+                    try {
+                        connectionReturned.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                try {
+                    candidate = open();
+                } catch (SQLException e) {
+                    discarded();
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                closeQuietly(candidate);
+                discarded();
+                continue;
+            }
+
+            recordBorrow(System.nanoTime() - start);
+            return candidate.newHandle();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (now - pc.createdAt >= maxLifetimeMs) {
+            return false;
+        }
+        if (now - pc.lastUsedAt < validationIntervalMs) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        boolean reusable;
+        try {
+            pc.statements.releaseAll();
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            reusable = !pc.physical.isClosed()
+                    && System.currentTimeMillis() - pc.createdAt < maxLifetimeMs;
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (!reusable) {
+            closeQuietly(pc);
+            discarded();
+            return;
+        }
+
+        pc.lastUsedAt = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (shutdown) {
+                openCount--;
+                closeQuietly(pc);
+                return;
+            }
+            idle.addFirst(pc);
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discarded() {
+        lock.lock();
+        try {
+            openCount--;
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictStale() {
+        List<PooledConnection> toClose = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            // idle is ordered most-recently-used first, so stale entries sit at the tail
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                boolean expired = now - pc.createdAt >= maxLifetimeMs;
+                boolean idleTooLong = now - pc.lastUsedAt >= idleTimeoutMs && idle.size() > minIdle;
+                if (expired || idleTooLong) {
+                    it.remove();
+                    openCount--;
+                    toClose.add(pc);
+                }
+            }
+            if (!toClose.isEmpty()) {
+                connectionReturned.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pc : toClose) {
+            closeQuietly(pc);
+            evicted.incrementAndGet();
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrows.incrementAndGet();
+        borrowNanosTotal.addAndGet(nanos);
+        borrowNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            openCount -= idle.size();
+            idle.clear();
+            connectionReturned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            closeQuietly(pc);
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            int idleCount = idle.size();
+            return new Stats(openCount - idleCount, idleCount, waiters, maxSize,
+                    borrows.get(), borrowNanosTotal.get(), borrowNanosMax.get(),
+                    timeouts.get(), created.get(), evicted.get(),
+                    statementHits.get(), statementMisses.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // One physical connection. Every borrow gets a fresh proxy handle so that a
+    // closed handle cannot keep using the connection after it went back to the pool.
+    private class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final long createdAt;
+        volatile long lastUsedAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize, statementHits, statementMisses);
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = createdAt;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    private class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + (closed ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool", "08003");
+            }
+            if (method.getName().equals("prepareStatement") && statementCacheSize > 0) {
+                if (args.length == 1) {
+                    return pc.statements.prepare((String) args[0]);
+                }
+                if (args.length == 2 && args[1] instanceof Integer) {
+                    return pc.statements.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long borrowNanosTotal;
+        private final long borrowNanosMax;
+        private final long timeouts;
+        private final long created;
+        private final long evicted;
+        private final long statementHits;
+        private final long statementMisses;
+
+        Stats(int active, int idle, int waiters, int maxSize, long borrowCount,
+              long borrowNanosTotal, long borrowNanosMax, long timeouts, long created, long evicted,
+              long statementHits, long statementMisses) {
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.borrowNanosTotal = borrowNanosTotal;
+            this.borrowNanosMax = borrowNanosMax;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.evicted = evicted;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiters() { return waiters; }
+        public int getMaxSize() { return maxSize; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getTimeouts() { return timeouts; }
+        public long getCreated() { return created; }
+        public long getEvicted() { return evicted; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+
+        public double getStatementHitRatio() {
+            long total = statementHits + statementMisses;
+            return total == 0 ? 0 : (double) statementHits / total;
+        }
+
+        public double getAverageBorrowMillis() {
+            return borrowCount == 0 ? 0 : borrowNanosTotal / 1_000_000.0 / borrowCount;
+        }
+
+        public double getMaxBorrowMillis() {
+            return borrowNanosMax / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Pool{active=%d, idle=%d, waiters=%d, max=%d, borrows=%d, " +
+                            "avgBorrow=%.3f ms, maxBorrow=%.3f ms, timeouts=%d, created=%d, evicted=%d, " +
+                            "stmtHits=%d, stmtMisses=%d}",
+                    active, idle, waiters, maxSize, borrowCount,
+                    getAverageBorrowMillis(), getMaxBorrowMillis(), timeouts, created, evicted,
+                    statementHits, statementMisses);
+        }
+    }
+}
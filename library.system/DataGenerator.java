@@ -0,0 +1,519 @@
+package librarysystem;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Fills library_db with a large synthetic dataset for load testing:
+//   - book popularity follows a Zipf distribution, popular titles get more copies
+//   - a year of checkouts per copy, busier in term time and on weekdays, some late or renewed
+//   - hold queues on popular titles, fines accrued from the late loans by FineAccrualEngine
+// Rows are appended with explicit ids after the current maximum and are written by
+// parallel writers in multi-row batches (rewriteBatchedStatements). Every chunk draws from
+// its own random stream derived from the seed, and all dates are relative to a fixed
+// reference date (--asOf) rather than the day of the run, so the same seed on the same
+// starting database always produces the same rows, whatever the thread count or date.
+//
+//   java librarysystem.DataGenerator --members=1000000 --books=500000 --loans=5000000 --seed=42 --asOf=2025-01-01
+public class DataGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int CHUNK_SIZE = 20_000;
+    private static final int LOAN_DAYS = 14;
+    private static final int HISTORY_DAYS = 365;
+    public static final LocalDate DEFAULT_AS_OF = LocalDate.of(2025, 1, 1);
+
+    private static final String[] FIRST_NAMES = {"James", "Maria", "Ahmed", "Sara", "John", "Noura", "Wei", "Fatima",
+            "David", "Aisha", "Carlos", "Lena", "Omar", "Emma", "Yuki", "Reem", "Liam", "Hana", "Ali", "Chloe"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Alotaibi", "Chen", "Johnson", "Almutairi", "Kim",
+            "Brown", "Hassan", "Martin", "Nguyen", "Alharbi", "Lopez", "Wilson", "Tanaka", "Khan", "Muller", "Rossi"};
+    private static final String[] ADJECTIVES = {"Silent", "Hidden", "Last", "Golden", "Broken", "Endless", "Secret",
+            "Distant", "Burning", "Forgotten", "Crimson", "Winter", "Lost", "Quiet", "Wild", "Final"};
+    private static final String[] NOUNS = {"Garden", "River", "Kingdom", "Letter", "Mountain", "Shadow", "Voyage",
+            "Library", "Promise", "Empire", "Harbor", "Mirror", "Storm", "Journey", "Island", "Code"};
+    private static final String[] CATEGORIES = {"Fiction", "Fiction", "Fiction", "Fantasy", "Science Fiction",
+            "Mystery", "Mystery", "History", "Science", "Biography", "Children", "Children", "Computer Science"};
+    // Relative checkout volume per month, January first: term-time peaks, summer dip
+    private static final double[] MONTH_WEIGHT = {1.2, 1.1, 1.0, 0.9, 0.8, 0.6, 0.5, 0.6, 1.3, 1.2, 1.1, 0.8};
+
+    private final long seed;
+    private final int members;
+    private final int books;
+    private final int avgCopies;
+    private final long targetLoans;
+    private final int holds;
+    private final int threads;
+    private final double zipfExponent;
+    private final LocalDate asOf;          // "today" for the generated data
+    private final LocalDate historyStart;
+
+    private int memberBase;
+    private int bookBase;
+    private int copyBase;
+    private int loanBase;
+    private int holdBase;
+
+    private double[] popularityCdf;   // by popularity rank
+    private int[] rankToBook;         // popularity rank -> book index
+    private double[] bookShare;       // book index -> share of all checkouts
+    private int[] firstCopy;          // book index -> index of its first copy
+    private int totalCopies;
+    private String memberHash;
+
+    public DataGenerator(long seed, int members, int books, int avgCopies, long targetLoans,
+                         int holds, int threads, double zipfExponent, LocalDate asOf) {
+        this.seed = seed;
+        this.members = members;
+        this.books = books;
+        this.avgCopies = avgCopies;
+        this.targetLoans = targetLoans;
+        this.holds = holds;
+        this.threads = threads;
+        this.zipfExponent = zipfExponent;
+        this.asOf = asOf;
+        this.historyStart = asOf.minusDays(HISTORY_DAYS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seed = 42;
+        int members = 100_000;
+        int books = 50_000;
+        int avgCopies = 3;
+        long loans = 1_000_000;
+        int holds = 20_000;
+        int threads = 4;
+        double zipf = 1.07;
+        LocalDate asOf = DEFAULT_AS_OF;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1].replace("_", "") : "";
+            switch (kv[0]) {
+                case "seed": seed = Long.parseLong(value); break;
+                case "members": members = Integer.parseInt(value); break;
+                case "books": books = Integer.parseInt(value); break;
+                case "copies": avgCopies = Integer.parseInt(value); break;
+                case "loans": loans = Long.parseLong(value); break;
+                case "holds": holds = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "zipf": zipf = Double.parseDouble(value); break;
+                case "asOf": asOf = LocalDate.parse(value); break;
+                default:
+                    System.err.println("Unknown option: " + arg);
+                    System.exit(2);
+            }
+        }
+
+        try {
+            MigrationRunner.migrate(false);
+            new DataGenerator(seed, members, books, avgCopies, loans, holds, threads, zipf, asOf).generate();
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+
+    public void generate() throws Exception {
+        long start = System.currentTimeMillis();
+        System.out.println("=== DATA GENERATOR (seed " + seed + ", as of " + asOf + ") ===");
+        memberHash = PasswordUtils.hashPassword("Member123!"); // one hash for everyone; hashing millions is not the point
+        readIdBases();
+        planCatalog();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            phase(pool, "members", members, 1, this::writeMembers);
+            phase(pool, "books", books, 2, this::writeBooks);
+            phase(pool, "copies", books, 3, this::writeCopies);
+            planLoanIds(pool);
+            phase(pool, "loans", totalCopies, 4, this::writeLoans);
+            phase(pool, "holds", holds, 5, this::writeHolds);
+        } finally {
+            pool.shutdown();
+        }
+
+        long t = System.currentTimeMillis();
+        int fines = FineAccrualEngine.accrue(asOf);
+        settleSomeFines();
+        System.out.println("  fines: " + fines + " accrued in " + (System.currentTimeMillis() - t) + " ms");
+
+        t = System.currentTimeMillis();
+        AvailabilityReconciler.reconcile();
+        MemberSummary.rebuild();
+        System.out.println("  counters and member summaries rebuilt in " + (System.currentTimeMillis() - t) + " ms");
+        System.out.println("Done in " + (System.currentTimeMillis() - start) / 1000 + " s");
+    }
+
+    private void readIdBases() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            memberBase = maxId(stmt, "SELECT MAX(member_id) FROM members") + 1;
+            bookBase = maxId(stmt, "SELECT MAX(book_id) FROM books") + 1;
+            copyBase = maxId(stmt, "SELECT MAX(copy_id) FROM copies") + 1;
+            loanBase = maxId(stmt, "SELECT MAX(loan_id) FROM loans") + 1;
+            holdBase = maxId(stmt, "SELECT MAX(hold_id) FROM holds") + 1;
+        }
+    }
+
+    private static int maxId(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Popularity ranks, each book's share of checkouts and its number of copies
+    private void planCatalog() {
+        popularityCdf = new double[books];
+        double total = 0;
+        for (int r = 0; r < books; r++) {
+            total += 1.0 / Math.pow(r + 1, zipfExponent);
+            popularityCdf[r] = total;
+        }
+        for (int r = 0; r < books; r++) {
+            popularityCdf[r] /= total;
+        }
+
+        // Scatter ranks over the id space so the bestsellers are not simply the oldest rows
+        long stride = 1_000_003;
+        while (books % stride == 0) {
+            stride += 2;
+        }
+        rankToBook = new int[books];
+        bookShare = new double[books];
+        for (int r = 0; r < books; r++) {
+            int book = (int) ((r * stride) % books);
+            rankToBook[r] = book;
+            bookShare[book] = popularityCdf[r] - (r == 0 ? 0 : popularityCdf[r - 1]);
+        }
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        firstCopy = new int[books + 1];
+        int topRanks = Math.max(1, books / 100);
+        for (int r = 0; r < books; r++) {
+            int book = rankToBook[r];
+            int copies = r < topRanks
+                    ? 2 * avgCopies + rng.nextInt(avgCopies + 1)
+                    : 1 + rng.nextInt(Math.max(1, 2 * avgCopies - 1));
+            firstCopy[book + 1] = copies;
+        }
+        for (int b = 0; b < books; b++) {
+            firstCopy[b + 1] += firstCopy[b];
+        }
+        totalCopies = firstCopy[books];
+    }
+
+    private int sampleBook(SplittableRandom rng) {
+        double u = rng.nextDouble();
+        int lo = 0;
+        int hi = books - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (popularityCdf[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return rankToBook[lo];
+    }
+
+    // Heavy readers borrow far more than occasional ones
+    private int sampleMember(SplittableRandom rng) {
+        return memberBase + (int) (members * Math.pow(rng.nextDouble(), 2.0));
+    }
+
+    private int bookOfCopy(int copy) {
+        int lo = 0;
+        int hi = books - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstCopy[mid] <= copy) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private double dayWeight(LocalDate day) {
+        double w = MONTH_WEIGHT[day.getMonthValue() - 1];
+        if (day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            w *= 0.3;
+        } else if (day.getDayOfWeek() == DayOfWeek.SATURDAY) {
+            w *= 0.7;
+        }
+        return w;
+    }
+
+    interface ChunkWriter {
+        long write(Connection conn, SplittableRandom rng, int from, int to) throws SQLException;
+    }
+
+    // Splits [0, total) into chunks and writes them in parallel. The random stream of a
+    // chunk depends only on the seed, the phase and the chunk number.
+    private void phase(ExecutorService pool, String name, int total, int salt, ChunkWriter writer) throws Exception {
+        long start = System.currentTimeMillis();
+        List<Future<Long>> parts = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < total; from += CHUNK_SIZE, chunk++) {
+            int f = from;
+            int to = Math.min(total, from + CHUNK_SIZE);
+            SplittableRandom rng = chunkRandom(salt, chunk);
+            parts.add(pool.submit(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    conn.setAutoCommit(false);
+                    long rows = writer.write(conn, rng, f, to);
+                    conn.commit();
+                    return rows;
+                }
+            }));
+        }
+        long rows = 0;
+        for (Future<Long> part : parts) {
+            rows += part.get();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        System.out.printf("  %s: %d rows in %d ms (%d rows/s)%n", name, rows, elapsed, rows * 1000 / elapsed);
+    }
+
+    private SplittableRandom chunkRandom(int salt, int chunk) {
+        return new SplittableRandom(seed * 1_000_003L + salt * 7_919L + chunk);
+    }
+
+    private static void addRow(PreparedStatement ps, Connection conn, long[] pending) throws SQLException {
+        ps.addBatch();
+        if (++pending[0] % BATCH_SIZE == 0) {
+            ps.executeBatch();
+            conn.commit();
+        }
+    }
+
+    private long writeMembers(Connection conn, SplittableRandom rng, int from, int to) throws SQLException {
+        String sql = "INSERT INTO members (member_id, name, email, password_hash, role, registration_date, is_active) " +
+                     "VALUES (?, ?, ?, ?, 'MEMBER', ?, ?)";
+        long[] pending = {0};
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = from; i < to; i++) {
+                int id = memberBase + i;
+                ps.setInt(1, id);
+                ps.setString(2, FIRST_NAMES[rng.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[rng.nextInt(LAST_NAMES.length)]);
+                ps.setString(3, "member" + id + "@gen.library.test");
+                ps.setString(4, memberHash);
+                ps.setDate(5, Date.valueOf(asOf.minusDays(rng.nextInt(5 * 365))));
+                ps.setBoolean(6, rng.nextInt(100) >= 3);
+                addRow(ps, conn, pending);
+            }
+            ps.executeBatch();
+        }
+        return pending[0];
+    }
+
+    private long writeBooks(Connection conn, SplittableRandom rng, int from, int to) throws SQLException {
+        String sql = "INSERT INTO books (book_id, isbn, title, author, category, publication_year, description) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long[] pending = {0};
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = from; i < to; i++) {
+                int id = bookBase + i;
+                ps.setInt(1, id);
+                ps.setString(2, String.format("979%010d", id));
+                ps.setString(3, "The " + ADJECTIVES[rng.nextInt(ADJECTIVES.length)] + " " +
+                        NOUNS[rng.nextInt(NOUNS.length)] + (rng.nextInt(4) == 0 ? " " + (2 + rng.nextInt(5)) : ""));
+                ps.setString(4, FIRST_NAMES[rng.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[rng.nextInt(LAST_NAMES.length)]);
+                ps.setString(5, CATEGORIES[rng.nextInt(CATEGORIES.length)]);
+                ps.setInt(6, asOf.getYear() - (int) (120 * Math.pow(rng.nextDouble(), 3)));
+                ps.setString(7, "Generated title #" + id);
+                addRow(ps, conn, pending);
+            }
+            ps.executeBatch();
+        }
+        return pending[0];
+    }
+
+    // Chunked by book so every book's copies are written by one writer
+    private long writeCopies(Connection conn, SplittableRandom rng, int from, int to) throws SQLException {
+        String sql = "INSERT INTO copies (copy_id, book_id, status, location) VALUES (?, ?, ?, ?)";
+        long[] pending = {0};
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int b = from; b < to; b++) {
+                for (int c = firstCopy[b]; c < firstCopy[b + 1]; c++) {
+                    ps.setInt(1, copyBase + c);
+                    ps.setInt(2, bookBase + b);
+                    ps.setString(3, rng.nextInt(200) == 0 ? "MAINTENANCE" : "AVAILABLE");
+                    ps.setString(4, "Shelf " + (char) ('A' + rng.nextInt(12)) + (1 + rng.nextInt(40)));
+                    addRow(ps, conn, pending);
+                }
+            }
+            ps.executeBatch();
+        }
+        return pending[0];
+    }
+
+    // A loan history is simulated per copy. Loan ids are assigned per chunk in advance so
+    // they do not depend on which writer finishes first: a dry run counts each chunk's loans.
+    private int[] loanChunkBase;
+
+    private void planLoanIds(ExecutorService pool) throws Exception {
+        List<Future<Long>> counts = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < totalCopies; from += CHUNK_SIZE, chunk++) {
+            int f = from;
+            int to = Math.min(totalCopies, from + CHUNK_SIZE);
+            SplittableRandom rng = chunkRandom(4, chunk);
+            counts.add(pool.submit(() -> simulateLoans(null, rng, f, to, 0)));
+        }
+        loanChunkBase = new int[counts.size()];
+        long next = loanBase;
+        for (int i = 0; i < counts.size(); i++) {
+            loanChunkBase[i] = (int) next;
+            next += counts.get(i).get();
+        }
+    }
+
+    private long writeLoans(Connection conn, SplittableRandom rng, int from, int to) throws SQLException {
+        return simulateLoans(conn, rng, from, to, loanChunkBase[from / CHUNK_SIZE]);
+    }
+
+    // Walks each copy through the year: idle gap, checkout, return, idle gap... The gap
+    // follows the book's share of demand, thinned by the season and day of the week. With
+    // conn == null it only counts loans.
+    private long simulateLoans(Connection conn, SplittableRandom rng, int from, int to, int firstLoanId)
+            throws SQLException {
+        PreparedStatement insert = null;
+        PreparedStatement checkedOut = null;
+        if (conn != null) {
+            insert = conn.prepareStatement(
+                    "INSERT INTO loans (loan_id, copy_id, member_id, checkout_date, due_date, return_date, renewed_count) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)");
+            checkedOut = conn.prepareStatement("UPDATE copies SET status = 'CHECKED_OUT' WHERE copy_id = ?");
+        }
+        long[] pending = {0};
+        long count = 0;
+        try {
+            for (int c = from; c < to; c++) {
+                int book = bookOfCopy(c);
+                int copies = firstCopy[book + 1] - firstCopy[book];
+                double perDay = targetLoans * bookShare[book] / copies / HISTORY_DAYS;
+                double maxWeight = 1.3;
+                int day = 0;
+                while (true) {
+                    // Exponential gap at the peak rate, then keep the day with probability weight / peak
+                    double gap = -Math.log(1 - rng.nextDouble()) / (perDay * maxWeight);
+                    if (day + gap >= HISTORY_DAYS) {
+                        break;
+                    }
+                    day += 1 + (int) gap;
+                    if (day >= HISTORY_DAYS) {
+                        break;
+                    }
+                    LocalDate checkout = historyStart.plusDays(day);
+                    if (rng.nextDouble() * maxWeight > dayWeight(checkout)) {
+                        continue;
+                    }
+                    int renewals = rng.nextInt(10) == 0 ? 1 : 0;
+                    int loanLength = LOAN_DAYS * (1 + renewals);
+                    int kept = rng.nextInt(8) == 0
+                            ? loanLength + 1 + rng.nextInt(30)    // late
+                            : 2 + rng.nextInt(loanLength - 1);    // on time
+                    LocalDate returned = checkout.plusDays(kept);
+                    boolean open = !returned.isBefore(asOf);
+
+                    if (conn != null) {
+                        insert.setInt(1, firstLoanId + (int) count);
+                        insert.setInt(2, copyBase + c);
+                        insert.setInt(3, sampleMember(rng));
+                        insert.setDate(4, Date.valueOf(checkout));
+                        insert.setDate(5, Date.valueOf(checkout.plusDays(loanLength)));
+                        insert.setDate(6, open ? null : Date.valueOf(returned));
+                        insert.setInt(7, renewals);
+                        addRow(insert, conn, pending);
+                        if (open) {
+                            checkedOut.setInt(1, copyBase + c);
+                            checkedOut.addBatch();
+                        }
+                    } else {
+                        sampleMember(rng); // keep the stream in step with the writing pass
+                    }
+                    count++;
+                    if (open) {
+                        break;
+                    }
+                    day += kept;
+                }
+            }
+            if (conn != null) {
+                insert.executeBatch();
+                checkedOut.executeBatch();
+            }
+        } finally {
+            if (insert != null) {
+                insert.close();
+                checkedOut.close();
+            }
+        }
+        return count;
+    }
+
+    // Holds concentrate on popular titles. Recent ones are still queued; older ones were
+    // collected, cancelled or left to expire.
+    private long writeHolds(Connection conn, SplittableRandom rng, int from, int to) throws SQLException {
+        String sql = "INSERT INTO holds (hold_id, book_id, member_id, place_date, status, notification_sent, ready_date) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long[] pending = {0};
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = from; i < to; i++) {
+                int age = rng.nextInt(90);
+                Timestamp placed = Timestamp.valueOf(asOf.minusDays(age).atStartOfDay()
+                        .plusSeconds(8 * 3600 + rng.nextInt(12 * 3600)));
+                String status;
+                if (age < 30 && rng.nextInt(5) != 0) {
+                    status = "PENDING";
+                } else {
+                    int r = rng.nextInt(10);
+                    status = r < 6 ? "FULFILLED" : (r < 8 ? "CANCELLED" : "EXPIRED");
+                }
+                boolean wasReady = status.equals("FULFILLED") || status.equals("EXPIRED");
+                ps.setInt(1, holdBase + i);
+                ps.setInt(2, bookBase + sampleBook(rng));
+                ps.setInt(3, sampleMember(rng));
+                ps.setTimestamp(4, placed);
+                ps.setString(5, status);
+                ps.setBoolean(6, wasReady);
+                ps.setTimestamp(7, wasReady ? new Timestamp(placed.getTime() + (1 + rng.nextInt(10)) * 86_400_000L) : null);
+                addRow(ps, conn, pending);
+            }
+            ps.executeBatch();
+        }
+        return pending[0];
+    }
+
+    // About two thirds of the accrued fines have been paid within a week
+    private void settleSomeFines() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            int min;
+            int max;
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(fine_id), MAX(fine_id) FROM fines WHERE reason = 'OVERDUE'")) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return;
+                }
+                min = rs.getInt(1);
+                max = rs.getInt(2);
+            }
+            String sql = "UPDATE fines SET status = 'PAID', paid_date = DATE_ADD(issue_date, INTERVAL 7 DAY) " +
+                         "WHERE fine_id BETWEEN ? AND ? AND reason = 'OVERDUE' AND status = 'UNPAID' " +
+                         "AND MOD(fine_id * 7919 + ?, 100) < 65";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int lo = min; lo <= max; lo += 10 * BATCH_SIZE) {
+                    ps.setInt(1, lo);
+                    ps.setInt(2, lo + 10 * BATCH_SIZE - 1);
+                    ps.setLong(3, seed);
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+}
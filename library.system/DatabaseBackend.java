@@ -0,0 +1,142 @@
+package librarysystem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The database engine behind DatabaseConnection, picked with -Dlibrary.db=mysql|h2.
+// MYSQL is the production server. H2 runs in-process in MySQL mode with an in-memory
+// database, so tests and benchmarks need no external service. URL and credentials can be
+// overridden with library.db.url, library.db.user and library.db.password.
+//
+// The few statements that depend on the engine ask the backend for their SQL fragment
+// instead of hard-coding the MySQL syntax.
+public enum DatabaseBackend {
+
+    MYSQL("com.mysql.cj.jdbc.Driver",
+          "jdbc:mysql://localhost:3306/library_db?useServerPrepStmts=true&rewriteBatchedStatements=true",
+          "root", "1234"),
+
+    H2("org.h2.Driver",
+       "jdbc:h2:mem:library_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+       "sa", "");
+
+    private final String driverClass;
+    private final String defaultUrl;
+    private final String defaultUser;
+    private final String defaultPassword;
+
+    // H2 has no named locks; the in-memory database lives in this JVM, so a JVM lock is enough
+    private final ReentrantLock localLock = new ReentrantLock();
+
+    DatabaseBackend(String driverClass, String defaultUrl, String defaultUser, String defaultPassword) {
+        this.driverClass = driverClass;
+        this.defaultUrl = defaultUrl;
+        this.defaultUser = defaultUser;
+        this.defaultPassword = defaultPassword;
+    }
+
+    public static DatabaseBackend fromConfig() {
+        String name = System.getProperty("library.db", "mysql").trim().toUpperCase();
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown database backend '" + name + "', expected mysql or h2");
+        }
+    }
+
+    public String getDriverClass() { return driverClass; }
+    public String getUrl() { return System.getProperty("library.db.url", defaultUrl); }
+    public String getUser() { return System.getProperty("library.db.user", defaultUser); }
+    public String getPassword() { return System.getProperty("library.db.password", defaultPassword); }
+
+    // Appended after FOR UPDATE. H2 has no SKIP LOCKED, so there the claim waits for the
+    // row instead of moving on; the outcome is the same, only with less concurrency.
+    public String skipLocked() {
+        return this == MYSQL ? " SKIP LOCKED" : "";
+    }
+
+    // Row lock limited to one table of a join
+    public String forUpdateOf(String alias) {
+        return this == MYSQL ? " FOR UPDATE OF " + alias : " FOR UPDATE";
+    }
+
+    // Fetch size that makes the driver stream a large result instead of buffering it.
+    // Connector/J only streams with MIN_VALUE; H2 rejects negative sizes.
+    public int streamingFetchSize() {
+        return this == MYSQL ? Integer.MIN_VALUE : 1000;
+    }
+
+    // Whether NULL sorts before every value in ascending order (MySQL does; the H2 URL
+    // above sets DEFAULT_NULL_ORDERING=HIGH, which puts it last)
+    public boolean nullsSortFirst() {
+        return this == MYSQL;
+    }
+
+    public String createIndexSql(String table, String name, String columns, boolean unique) {
+        return this == MYSQL
+                ? "ALTER TABLE " + table + " ADD " + (unique ? "UNIQUE " : "") + "INDEX " + name +
+                  " (" + columns + "), ALGORITHM=INPLACE, LOCK=NONE"
+                : "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + name + " ON " + table + " (" + columns + ")";
+    }
+
+    public String addColumnSql(String table, String column, String definition) {
+        return this == MYSQL
+                ? "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition + ", ALGORITHM=INPLACE, LOCK=NONE"
+                : "ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS " + column + " " + definition;
+    }
+
+    // Queries with two parameters (table, name) that find an existing index / column / constraint
+    public String indexExistsSql() {
+        return this == MYSQL
+                ? "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?"
+                : "SELECT 1 FROM information_schema.indexes WHERE table_schema = SCHEMA() AND table_name = ? AND index_name = ?";
+    }
+
+    public String columnExistsSql() {
+        return this == MYSQL
+                ? "SELECT 1 FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?"
+                : "SELECT 1 FROM information_schema.columns WHERE table_schema = SCHEMA() AND table_name = ? AND column_name = ?";
+    }
+
+    public String constraintExistsSql() {
+        return this == MYSQL
+                ? "SELECT 1 FROM information_schema.table_constraints WHERE table_schema = DATABASE() AND table_name = ? AND constraint_name = ?"
+                : "SELECT 1 FROM information_schema.table_constraints WHERE table_schema = SCHEMA() AND table_name = ? AND constraint_name = ?";
+    }
+
+    // Lock shared by every process using the database (GET_LOCK on MySQL)
+    public boolean acquireLock(Connection conn, String name, int timeoutSeconds) throws SQLException {
+        if (this != MYSQL) {
+            try {
+                return localLock.tryLock(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, name);
+            ps.setInt(2, timeoutSeconds);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    public void releaseLock(Connection conn, String name) throws SQLException {
+        if (this != MYSQL) {
+            if (localLock.isHeldByCurrentThread()) {
+                localLock.unlock();
+            }
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, name);
+            ps.executeQuery().close();
+        }
+    }
+}
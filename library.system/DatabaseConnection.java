@@ -1,22 +1,62 @@
 package librarysystem;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/library_db";
-    private static final String USER = "root"; 
-    private static final String PASSWORD = "1234"; 
-    
+    private static final DatabaseBackend BACKEND = DatabaseBackend.fromConfig();
+
+    // Pool settings
+    private static final int MAX_POOL_SIZE = 10;
+    private static final int MIN_IDLE = 2;
+    private static final long BORROW_TIMEOUT_MS = 5_000;
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final long MAX_LIFETIME_MS = 30 * 60_000;
+    private static final long VALIDATION_INTERVAL_MS = 30_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private static volatile ConnectionPool pool;
+
     public static Connection getConnection() throws SQLException {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-            System.out.println("MySQL Database connected successfully!");
-            return conn;
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL Driver not found", e);
+        return getPool().borrow();
+    }
+
+    public static DatabaseBackend backend() {
+        return BACKEND;
+    }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool p = pool;
+        return p == null ? null : p.getStats();
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    try {
+                        Class.forName(BACKEND.getDriverClass());
+                    } catch (ClassNotFoundException e) {
+                        throw new SQLException(BACKEND + " driver not found", e);
+                    }
+                    p = new ConnectionPool(BACKEND.getUrl(), BACKEND.getUser(), BACKEND.getPassword(),
+                            MAX_POOL_SIZE, MIN_IDLE,
+                            BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, MAX_LIFETIME_MS, VALIDATION_INTERVAL_MS,
+                            STATEMENT_CACHE_SIZE);
+                    pool = p;
+                    System.out.println(BACKEND + " connection pool started (max " + MAX_POOL_SIZE + " connections)");
+                }
+            }
         }
+        return p;
     }
 }
\ No newline at end of file
@@ -3,107 +3,72 @@ package librarysystem;
 import java.sql.Connection;
 import java.sql.Statement;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 public class DatabaseSetup {
+
    public static void main (String[] args){
            runFullSetup();
 
    } 
     public static void runFullSetup() {
-        createTables();
+        dropTables();
+        try {
+            MigrationRunner.migrate(false);
+        } catch (SQLException e) {
+            System.err.println("Error creating tables: " + e.getMessage());
+            return;
+        }
         insertSampleData();
         System.out.println("=== FULL LIBRARY DATABASE SETUP COMPLETED ===");
     }
     
-    private static void createTables() {
-        String[] createTablesSQL = {
+    // Development reset: drops every table, rebuilds the schema through the migrations and
+    // loads the sample data. Startup uses seedIfEmpty() instead and never drops anything.
+    private static void dropTables() {
+        String[] dropTablesSQL = {
             // Drop tables in correct order (due to foreign keys)
+            "DROP TABLE IF EXISTS schema_version",
+            "DROP TABLE IF EXISTS job_checkpoints",
+            "DROP TABLE IF EXISTS notification_outbox",
             "DROP TABLE IF EXISTS holds",
-            "DROP TABLE IF EXISTS fines", 
+            "DROP TABLE IF EXISTS fines",
             "DROP TABLE IF EXISTS loans",
             "DROP TABLE IF EXISTS copies",
             "DROP TABLE IF EXISTS books",
-            "DROP TABLE IF EXISTS members",
-
-            // Create members table
-            "CREATE TABLE members (" +
-            "member_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "name VARCHAR(100) NOT NULL," +
-            "email VARCHAR(100) UNIQUE NOT NULL," + 
-            "password_hash VARCHAR(255) NOT NULL," +
-            "role ENUM('LIBRARIAN', 'MEMBER') NOT NULL," +
-            "registration_date DATE DEFAULT (CURRENT_DATE)," +
-            "is_active BOOLEAN DEFAULT TRUE)",
-
-            // Create books table
-            "CREATE TABLE books (" +
-            "book_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "isbn VARCHAR(20) UNIQUE NOT NULL," +
-            "title VARCHAR(200) NOT NULL," +
-            "author VARCHAR(100) NOT NULL," +
-            "category VARCHAR(50)," +
-            "publication_year INT," +
-            "description TEXT)",
-
-            // Create copies table
-            "CREATE TABLE copies (" +
-            "copy_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "book_id INT NOT NULL," +
-            "status ENUM('AVAILABLE', 'CHECKED_OUT', 'MAINTENANCE') DEFAULT 'AVAILABLE'," +
-            "location VARCHAR(50) DEFAULT 'Main Shelf'," +
-            "FOREIGN KEY (book_id) REFERENCES books(book_id) ON DELETE CASCADE)",
-
-            // Create loans table
-            "CREATE TABLE loans (" +
-            "loan_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "copy_id INT NOT NULL," +
-            "member_id INT NOT NULL," +
-            "checkout_date DATE DEFAULT (CURRENT_DATE)," +
-            "due_date DATE NOT NULL," +
-            "return_date DATE NULL," +
-            "renewed_count INT DEFAULT 0," +
-            "FOREIGN KEY (copy_id) REFERENCES copies(copy_id)," +
-            "FOREIGN KEY (member_id) REFERENCES members(member_id))",
-
-            // Create fines table
-            "CREATE TABLE fines (" +
-            "fine_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "member_id INT NOT NULL," +
-            "loan_id INT NULL," +
-            "amount DECIMAL(8,2) NOT NULL," +
-            "reason VARCHAR(100) NOT NULL," +
-            "issue_date DATE DEFAULT (CURRENT_DATE)," +
-            "paid_date DATE NULL," +
-            "status ENUM('UNPAID', 'PAID', 'WAIVED') DEFAULT 'UNPAID'," +
-            "FOREIGN KEY (member_id) REFERENCES members(member_id)," +
-            "FOREIGN KEY (loan_id) REFERENCES loans(loan_id))",
-
-            // Create holds table
-            "CREATE TABLE holds (" +
-            "hold_id INT PRIMARY KEY AUTO_INCREMENT," +
-            "book_id INT NOT NULL," +
-            "member_id INT NOT NULL," +
-            "place_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
-            "status ENUM('PENDING', 'READY', 'CANCELLED') DEFAULT 'PENDING'," +
-            "notification_sent BOOLEAN DEFAULT FALSE," +
-            "FOREIGN KEY (book_id) REFERENCES books(book_id)," +
-            "FOREIGN KEY (member_id) REFERENCES members(member_id))"
+            "DROP TABLE IF EXISTS member_summary",
+            "DROP TABLE IF EXISTS members"
         };
 
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
             
-            System.out.println("Creating database tables...");
-            for (String sql : createTablesSQL) {
+            System.out.println("Dropping database tables...");
+            for (String sql : dropTablesSQL) {
                 stmt.execute(sql);
             }
-            System.out.println("✓ All tables created successfully!");
             
         } catch (Exception e) {
-            System.err.println("Error creating tables: " + e.getMessage());
+            System.err.println("Error dropping tables: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    // Loads the sample data into a freshly migrated, empty database
+    public static void seedIfEmpty() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM members LIMIT 1")) {
+            if (rs.next()) {
+                return;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error checking for sample data: " + e.getMessage());
+            return;
+        }
+        insertSampleData();
+    }
     
     private static void insertSampleData() {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -116,6 +81,9 @@ public class DatabaseSetup {
             insertFines(conn);
             insertHolds(conn);
             
+            AvailabilityReconciler.reconcile();
+            MemberSummary.rebuild();
+            
             System.out.println("✓ Sample data inserted successfully!");
             
         } catch (Exception e) {
@@ -157,7 +125,7 @@ private static void insertMembers(Connection conn) throws Exception {
         insertMember(pstmt, "Inactive User", "inactive@email.com", 
                     memberHash, "MEMBER", false);
     }
-    System.out.println("✓ Members inserted with Java SHA-256 hashed passwords");
+    System.out.println("✓ Members inserted with PBKDF2 hashed passwords");
 }
     
     private static void insertMember(PreparedStatement pstmt, String name, String email, String passwordHash, String role, boolean active) throws Exception {
@@ -210,7 +178,7 @@ private static void insertMembers(Connection conn) throws Exception {
     }
     
     private static void insertLoans(Connection conn) throws Exception {
-        String sql = "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, DATE_ADD(CURRENT_DATE, INTERVAL 14 DAY))";
+        String sql = "INSERT INTO loans (copy_id, member_id, checkout_date, due_date) VALUES (?, ?, CURRENT_DATE, TIMESTAMPADD(DAY, 14, CURRENT_DATE))";
         
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             // John borrows a book
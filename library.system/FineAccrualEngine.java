@@ -0,0 +1,302 @@
+package librarysystem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Computes overdue fines from loans.due_date / return_date. Each run only reads loans
+// that can have a different fine than at the last checkpoint:
+//   - loans touched since then (returned, renewed), via idx_loans_updated
+//   - open loans whose fine grew because days passed and is not yet capped, via idx_loans_open
+// There is one OVERDUE fine per loan (uk_fines_loan_reason), upserted in batches, so
+// reruns and overlapping windows never double-charge. Paid or waived fines are left alone.
+public class FineAccrualEngine {
+
+    private static final String JOB_NAME = "fine-accrual";
+    private static final String REASON = "OVERDUE";
+    private static final int BATCH_SIZE = 1000;
+    // Loans committed just before the checkpoint may carry an older updated_at; re-reading
+    // a short overlap is harmless because the upsert is idempotent
+    private static final long CHECKPOINT_OVERLAP_MS = 60_000;
+
+    private static ScheduledExecutorService scheduler;
+    private static volatile BigDecimal dailyRate =
+            new BigDecimal(System.getProperty("library.fineDailyRate", "0.25"));
+    private static volatile BigDecimal maxFine =
+            new BigDecimal(System.getProperty("library.fineCap", "10.00"));
+
+    private static final AtomicLong runs = new AtomicLong();
+    private static volatile long lastLoansScanned;
+    private static volatile long lastFinesWritten;
+    private static volatile long lastFinesCleared;
+    private static volatile long lastRunMillis;
+
+    public static synchronized void start(long periodMinutes) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fine-accrual");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (accrue() > 0) {
+                System.out.println("Fine accrual: " + getStats());
+            }
+        }, 2, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static void configure(BigDecimal rate, BigDecimal cap) {
+        dailyRate = rate;
+        maxFine = cap;
+    }
+
+    // Returns the number of fines inserted or updated
+    public static int accrue() {
+        return accrue(LocalDate.now());
+    }
+
+    // Accrues as if today were the given date; DataGenerator uses its reference date so
+    // the fines it produces do not depend on the day it runs
+    public static synchronized int accrue(LocalDate today) {
+        long start = System.currentTimeMillis();
+        long scanned = 0;
+        int written = 0;
+        int cleared = 0;
+
+        try (Connection reader = DatabaseConnection.getConnection();
+             Connection writer = DatabaseConnection.getConnection()) {
+
+            Timestamp lastChange = null;
+            LocalDate lastAccrualDate = null;
+            try (PreparedStatement ps = writer.prepareStatement(
+                    "SELECT last_change_at, last_accrual_date FROM job_checkpoints WHERE job_name = ?")) {
+                ps.setString(1, JOB_NAME);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        lastChange = rs.getTimestamp(1);
+                        Date d = rs.getDate(2);
+                        lastAccrualDate = d == null ? null : d.toLocalDate();
+                    }
+                }
+            }
+            Timestamp checkpoint = new Timestamp(start - CHECKPOINT_OVERLAP_MS);
+
+            try (Batch batch = new Batch(writer, today)) {
+                // Loans returned or renewed since the last run; the first run backfills
+                // every loan that was returned late
+                String changedSql = lastChange != null
+                        ? "SELECT loan_id, member_id, due_date, return_date FROM loans WHERE updated_at >= ?"
+                        : "SELECT loan_id, member_id, due_date, return_date FROM loans WHERE return_date > due_date";
+                try (PreparedStatement ps = stream(reader, changedSql)) {
+                    if (lastChange != null) {
+                        ps.setTimestamp(1, lastChange);
+                    }
+                    scanned += process(ps, today, batch);
+                }
+
+                // Open loans whose fine changed since the last accrual date. A loan that was
+                // already capped on that date cannot change any more, so it is not read.
+                if (!today.equals(lastAccrualDate)) {
+                    String sql = "SELECT loan_id, member_id, due_date, return_date FROM loans " +
+                                 "WHERE return_date IS NULL AND due_date < ?" +
+                                 (lastAccrualDate != null ? " AND due_date > ?" : "");
+                    try (PreparedStatement ps = stream(reader, sql)) {
+                        ps.setDate(1, Date.valueOf(today));
+                        if (lastAccrualDate != null) {
+                            ps.setDate(2, Date.valueOf(lastAccrualDate.minusDays(capDays())));
+                        }
+                        scanned += process(ps, today, batch);
+                    }
+                }
+
+                batch.flush();
+                written = batch.written;
+                cleared = batch.cleared;
+            }
+
+            try (PreparedStatement ps = writer.prepareStatement(
+                    "INSERT INTO job_checkpoints (job_name, last_change_at, last_accrual_date) VALUES (?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE last_change_at = VALUES(last_change_at), " +
+                    "last_accrual_date = VALUES(last_accrual_date)")) {
+                ps.setString(1, JOB_NAME);
+                ps.setTimestamp(2, checkpoint);
+                ps.setDate(3, Date.valueOf(today));
+                ps.executeUpdate();
+            }
+
+        } catch (SQLException e) {
+            // Checkpoint not moved: the next run redoes the same window
+            System.err.println("Error accruing fines: " + e.getMessage());
+        }
+
+        runs.incrementAndGet();
+        lastLoansScanned = scanned;
+        lastFinesWritten = written;
+        lastFinesCleared = cleared;
+        lastRunMillis = System.currentTimeMillis() - start;
+        return written;
+    }
+
+    // Rows are streamed rather than buffered, so a year of loan history fits in memory
+    private static PreparedStatement stream(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(DatabaseConnection.backend().streamingFetchSize());
+        return ps;
+    }
+
+    private static long process(PreparedStatement ps, LocalDate today, Batch batch) throws SQLException {
+        long scanned = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                scanned++;
+                Date returned = rs.getDate("return_date");
+                LocalDate end = returned == null ? today : returned.toLocalDate();
+                long daysLate = ChronoUnit.DAYS.between(rs.getDate("due_date").toLocalDate(), end);
+                if (daysLate > 0) {
+                    batch.upsert(rs.getInt("loan_id"), rs.getInt("member_id"), fineFor(daysLate));
+                } else {
+                    batch.clear(rs.getInt("loan_id"), rs.getInt("member_id")); // renewed before it was late after all
+                }
+            }
+        }
+        return scanned;
+    }
+
+    static BigDecimal fineFor(long daysLate) {
+        BigDecimal amount = dailyRate.multiply(BigDecimal.valueOf(daysLate));
+        return amount.min(maxFine).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Days of lateness after which a fine stops growing
+    private static long capDays() {
+        if (dailyRate.signum() <= 0) {
+            return 0;
+        }
+        return maxFine.divide(dailyRate, 0, RoundingMode.CEILING).longValue();
+    }
+
+    private static class Batch implements AutoCloseable {
+        private final Connection conn;
+        private final PreparedStatement upsert;
+        private final PreparedStatement clear;
+        private final Set<Integer> members = new HashSet<>();
+        private int pending;
+        int written;
+        int cleared;
+
+        private final Date issueDate;
+
+        Batch(Connection conn, LocalDate today) throws SQLException {
+            this.conn = conn;
+            this.issueDate = Date.valueOf(today);
+            conn.setAutoCommit(false);
+            upsert = conn.prepareStatement(
+                    "INSERT INTO fines (member_id, loan_id, amount, reason, issue_date, status) " +
+                    "VALUES (?, ?, ?, '" + REASON + "', ?, 'UNPAID') " +
+                    "ON DUPLICATE KEY UPDATE amount = CASE WHEN status = 'UNPAID' THEN VALUES(amount) ELSE amount END");
+            clear = conn.prepareStatement(
+                    "DELETE FROM fines WHERE loan_id = ? AND reason = '" + REASON + "' AND status = 'UNPAID'");
+        }
+
+        void upsert(int loanId, int memberId, BigDecimal amount) throws SQLException {
+            upsert.setInt(1, memberId);
+            upsert.setInt(2, loanId);
+            upsert.setBigDecimal(3, amount);
+            upsert.setDate(4, issueDate);
+            upsert.addBatch();
+            members.add(memberId);
+            written++;
+            if (++pending >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void clear(int loanId, int memberId) throws SQLException {
+            clear.setInt(1, loanId);
+            clear.addBatch();
+            members.add(memberId);
+            cleared++;
+            if (++pending >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        // One short transaction per batch keeps row locks on fines brief. The upsert does
+        // not report old amounts, so the touched members' unpaid totals are recomputed.
+        void flush() throws SQLException {
+            try {
+                upsert.executeBatch();
+                clear.executeBatch();
+                MemberSummary.refreshFines(conn, members);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                pending = 0;
+                members.clear();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            upsert.close();
+            clear.close();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    public static Stats getStats() {
+        return new Stats(runs.get(), lastLoansScanned, lastFinesWritten, lastFinesCleared, lastRunMillis);
+    }
+
+    public static class Stats {
+        private final long runs;
+        private final long loansScanned;
+        private final long finesWritten;
+        private final long finesCleared;
+        private final long lastRunMillis;
+
+        Stats(long runs, long loansScanned, long finesWritten, long finesCleared, long lastRunMillis) {
+            this.runs = runs;
+            this.loansScanned = loansScanned;
+            this.finesWritten = finesWritten;
+            this.finesCleared = finesCleared;
+            this.lastRunMillis = lastRunMillis;
+        }
+
+        public long getRuns() { return runs; }
+        public long getLoansScanned() { return loansScanned; }
+        public long getFinesWritten() { return finesWritten; }
+        public long getFinesCleared() { return finesCleared; }
+        public long getLastRunMillis() { return lastRunMillis; }
+
+        // Loans processed per second during the last run
+        public double getThroughput() {
+            return lastRunMillis == 0 ? loansScanned : loansScanned * 1000.0 / lastRunMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("runs=%d lastRun: %d loans in %d ms (%.0f/s), %d fines written, %d cleared",
+                    runs, loansScanned, lastRunMillis, getThroughput(), finesWritten, finesCleared);
+        }
+    }
+}
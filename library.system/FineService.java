@@ -0,0 +1,80 @@
+package librarysystem;
+
+import java.math.BigDecimal;
+import java.sql.*;
+
+public class FineService {
+
+    public String issueFine(int memberId, BigDecimal amount, String reason) {
+        if (amount.signum() <= 0) {
+            return "FAIL: Fine amount must be positive.";
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                String sql = "INSERT INTO fines (member_id, amount, reason, status) VALUES (?, ?, ?, 'UNPAID')";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, memberId);
+                    ps.setBigDecimal(2, amount);
+                    ps.setString(3, reason);
+                    ps.executeUpdate();
+                }
+                MemberSummary.adjust(conn, memberId, amount, 0, 0);
+                conn.commit();
+                return "SUCCESS: Fine issued.";
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error issuing fine: " + e.getMessage());
+            return "ERROR: Database access failed.";
+        }
+    }
+
+    public String payFine(int fineId) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int memberId;
+                BigDecimal amount;
+                String lockSql = "SELECT member_id, amount FROM fines WHERE fine_id = ? AND status = 'UNPAID' FOR UPDATE";
+                try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                    ps.setInt(1, fineId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return "FAIL: Fine is not unpaid.";
+                        }
+                        memberId = rs.getInt("member_id");
+                        amount = rs.getBigDecimal("amount");
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE fines SET status = 'PAID', paid_date = CURRENT_DATE WHERE fine_id = ?")) {
+                    ps.setInt(1, fineId);
+                    ps.executeUpdate();
+                }
+                MemberSummary.adjust(conn, memberId, amount.negate(), 0, 0);
+                conn.commit();
+                return "SUCCESS: Fine marked as PAID.";
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error paying fine: " + e.getMessage());
+            return "ERROR: Database access failed.";
+        }
+    }
+
+    // Rows for the fines list, unpaid first, loaded lazily by LazyTableModel
+    public LazyTableModel.RowSource getFinesRowSource() {
+        return new SqlRowSource(
+                "f.fine_id, m.name, f.amount, f.reason, f.status",
+                "fines f JOIN members m ON f.member_id = m.member_id",
+                new String[]{"f.fine_id", "m.name", "f.amount", "f.reason", "f.status"},
+                new String[]{"m.name", "f.reason", "f.status"},
+                "f.status DESC, f.fine_id DESC");
+    }
+}
@@ -7,7 +7,7 @@ public class Hold {
     private int bookId;
     private int memberId;
     private Timestamp placeDate;
-    private String status; // PENDING, READY, CANCELLED
+    private String status; // PENDING, READY, CANCELLED, FULFILLED, EXPIRED
     private boolean notificationSent;
     private int queuePosition; 
 
@@ -0,0 +1,210 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Expires READY holds whose pickup window has passed and hands their reserved copy to
+// the next member in line. Works in batches over idx_holds_ready (status, ready_date),
+// so a run only touches overdue READY holds, never the historical holds.
+public class HoldExpirySweeper {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static ScheduledExecutorService scheduler;
+    private static volatile int pickupDays = 3;
+
+    private static final AtomicLong runs = new AtomicLong();
+    private static final AtomicLong expiredTotal = new AtomicLong();
+    private static final AtomicLong promotedTotal = new AtomicLong();
+    private static volatile long lastRunMillis;
+    private static volatile long lastRunExpired;
+    private static volatile long lastLagSeconds;
+    private static volatile long lastRunAt;
+
+    public static synchronized void start(long periodMinutes, int pickupWindowDays) {
+        if (scheduler != null) {
+            return;
+        }
+        pickupDays = pickupWindowDays;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hold-expiry-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            int expired = sweep();
+            if (expired > 0) {
+                System.out.println("Hold expiry sweeper: " + getStats());
+            }
+        }, 1, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static int sweep() {
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = new Timestamp(start - TimeUnit.DAYS.toMillis(pickupDays));
+        int expired = 0;
+        int promoted = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            lastLagSeconds = measureLag(conn, cutoff);
+
+            while (true) {
+                List<Hold> newlyReady = new ArrayList<>();
+                int batch = expireBatch(conn, cutoff, newlyReady);
+                for (Hold hold : newlyReady) {
+                    HoldQueueIndex.getInstance().remove(hold.getHoldId());
+                }
+                if (batch > 0) {
+                    NotificationDispatcher.wakeUp();
+                }
+                expired += batch;
+                promoted += newlyReady.size();
+                if (batch < BATCH_SIZE) {
+                    break;
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error sweeping expired holds: " + e.getMessage());
+        }
+
+        runs.incrementAndGet();
+        expiredTotal.addAndGet(expired);
+        promotedTotal.addAndGet(promoted);
+        lastRunExpired = expired;
+        lastRunMillis = System.currentTimeMillis() - start;
+        lastRunAt = start;
+        return expired;
+    }
+
+    // One transaction per batch: expire the holds and pass each copy on. SKIP LOCKED
+    // leaves alone holds a member is collecting at this very moment.
+    private static int expireBatch(Connection conn, Timestamp cutoff, List<Hold> newlyReady) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            List<int[]> holds = new ArrayList<>(); // {hold_id, book_id, copy_id, member_id}
+            String selectSql = "SELECT hold_id, book_id, copy_id, member_id FROM holds " +
+                               "WHERE status = 'READY' AND ready_date < ? " +
+                               "ORDER BY ready_date, hold_id LIMIT " + BATCH_SIZE + " FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+            try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+                ps.setTimestamp(1, cutoff);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        holds.add(new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)});
+                    }
+                }
+            }
+            if (holds.isEmpty()) {
+                conn.commit();
+                return 0;
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE holds SET status = 'EXPIRED' WHERE hold_id = ?")) {
+                for (int[] h : holds) {
+                    ps.setInt(1, h[0]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            List<int[]> expiredMembers = new ArrayList<>();
+            List<Integer> memberIds = new ArrayList<>();
+            for (int[] h : holds) {
+                expiredMembers.add(new int[]{h[0], h[3]});
+                memberIds.add(h[3]);
+            }
+            MemberSummary.adjust(conn, memberIds, 0, -1);
+            NotificationDispatcher.enqueue(conn, "HOLD_EXPIRED", expiredMembers);
+
+            for (int[] h : holds) {
+                if (h[2] == 0) {
+                    continue; // READY hold from before copies were reserved
+                }
+                Hold next = ReservationService.releaseCopy(conn, h[1], h[2]);
+                if (next != null) {
+                    newlyReady.add(next);
+                }
+            }
+
+            conn.commit();
+            return holds.size();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            newlyReady.clear();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // How far behind the sweeper is: age of the oldest hold that should already have expired
+    private static long measureLag(Connection conn, Timestamp cutoff) throws SQLException {
+        String sql = "SELECT MIN(ready_date) FROM holds WHERE status = 'READY' AND ready_date < ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, cutoff);
+            try (ResultSet rs = ps.executeQuery()) {
+                Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+                return oldest == null ? 0 : (cutoff.getTime() - oldest.getTime()) / 1000;
+            }
+        }
+    }
+
+    public static Stats getStats() {
+        return new Stats(runs.get(), expiredTotal.get(), promotedTotal.get(),
+                lastRunExpired, lastRunMillis, lastLagSeconds, lastRunAt);
+    }
+
+    public static class Stats {
+        private final long runs;
+        private final long expired;
+        private final long promoted;
+        private final long lastRunExpired;
+        private final long lastRunMillis;
+        private final long lagSeconds;
+        private final long lastRunAt;
+
+        Stats(long runs, long expired, long promoted, long lastRunExpired,
+              long lastRunMillis, long lagSeconds, long lastRunAt) {
+            this.runs = runs;
+            this.expired = expired;
+            this.promoted = promoted;
+            this.lastRunExpired = lastRunExpired;
+            this.lastRunMillis = lastRunMillis;
+            this.lagSeconds = lagSeconds;
+            this.lastRunAt = lastRunAt;
+        }
+
+        public long getRuns() { return runs; }
+        public long getExpired() { return expired; }
+        public long getPromoted() { return promoted; }
+        public long getLastRunExpired() { return lastRunExpired; }
+        public long getLastRunMillis() { return lastRunMillis; }
+        public long getLagSeconds() { return lagSeconds; }
+        public long getLastRunAt() { return lastRunAt; }
+
+        // Holds expired per second during the last run
+        public double getThroughput() {
+            return lastRunMillis == 0 ? lastRunExpired : lastRunExpired * 1000.0 / lastRunMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("runs=%d expired=%d promoted=%d lastRun=%d holds in %d ms (%.1f/s) lag=%ds",
+                    runs, expired, promoted, lastRunExpired, lastRunMillis, getThroughput(), lagSeconds);
+        }
+    }
+}
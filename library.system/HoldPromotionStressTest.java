@@ -0,0 +1,162 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stress test for return + hold promotion. Every copy of a book is on loan and a long
+// queue of members holds it. Returned copies must go to the hold queue one by one while
+// walk-in members keep trying to grab them; nobody outside the queue may ever get one,
+// and no hold may be promoted twice. Needs the library_db database to be reachable,
+// or -Dlibrary.db=h2 to run against an in-memory database.
+public class HoldPromotionStressTest {
+
+    private static final int COPIES = 10;
+    private static final int HOLDERS = 60;
+    private static final int WALK_INS = 10;
+    private static final long TIMEOUT_MS = 120_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== HOLD PROMOTION STRESS TEST ===");
+        MigrationRunner.migrate(false);
+        HoldQueueIndex.getInstance().rebuild();
+
+        String tag = "HOLD-" + System.currentTimeMillis();
+        int bookId = TestFixtures.createBook(tag, "Hold Stress Test", COPIES);
+        List<Integer> borrowers = TestFixtures.createMembers(tag + "-b", "Stress", COPIES);
+        List<Integer> holders = TestFixtures.createMembers(tag + "-h", "Stress", HOLDERS);
+        List<Integer> walkIns = TestFixtures.createMembers(tag + "-w", "Stress", WALK_INS);
+        List<Integer> everyone = new ArrayList<>(borrowers);
+        everyone.addAll(holders);
+        everyone.addAll(walkIns);
+
+        boolean passed = false;
+        try {
+            BorrowingService service = new BorrowingService();
+            for (int memberId : borrowers) {
+                service.checkOutBook(bookId, memberId);
+            }
+            for (int memberId : holders) {
+                String r = ReservationService.placeHold(bookId, memberId);
+                if (!r.startsWith("SUCCESS")) {
+                    throw new IllegalStateException("Could not place hold: " + r);
+                }
+            }
+            System.out.println("\n" + COPIES + " copies on loan, " + HOLDERS + " holds queued, " +
+                    WALK_INS + " walk-in desks competing");
+
+            passed = run(bookId, borrowers, holders, walkIns);
+        } finally {
+            TestFixtures.cleanUp(bookId, everyone);
+            DatabaseConnection.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (passed ? "PASSED" : "FAILED"));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run(int bookId, List<Integer> borrowers, List<Integer> holders,
+                               List<Integer> walkIns) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(borrowers.size() + holders.size() + walkIns.size());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger returns = new AtomicInteger();
+        AtomicInteger walkInWins = new AtomicInteger();
+        // Holders hand the book back so the queue keeps moving; the last COPIES keep it,
+        // which means a copy never legitimately becomes AVAILABLE during the run
+        AtomicInteger returnsLeft = new AtomicInteger(HOLDERS - COPIES);
+        ConcurrentHashMap<Integer, Integer> checkoutsPerHolder = new ConcurrentHashMap<>();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int memberId : borrowers) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                if (new BorrowingService().returnBook(bookId, memberId).startsWith("SUCCESS")) {
+                    returns.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (int memberId : holders) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                BorrowingService service = new BorrowingService();
+                while (System.currentTimeMillis() < deadline) {
+                    if (service.checkOutBook(bookId, memberId).startsWith("SUCCESS")) {
+                        checkoutsPerHolder.merge(memberId, 1, Integer::sum);
+                        if (returnsLeft.getAndDecrement() > 0 &&
+                                service.returnBook(bookId, memberId).startsWith("SUCCESS")) {
+                            returns.incrementAndGet();
+                        }
+                        return null;
+                    }
+                    Thread.sleep(20);
+                }
+                return null;
+            }));
+        }
+        for (int memberId : walkIns) {
+            pool.submit(() -> {
+                start.await();
+                BorrowingService service = new BorrowingService();
+                while (!stop.get()) {
+                    if (service.checkOutBook(bookId, memberId).startsWith("SUCCESS")) {
+                        walkInWins.incrementAndGet();
+                        service.returnBook(bookId, memberId);
+                    }
+                    Thread.sleep(2);
+                }
+                return null;
+            });
+        }
+
+        long begin = System.currentTimeMillis();
+        start.countDown();
+        for (Future<?> f : tasks) {
+            f.get(TIMEOUT_MS + 10_000, TimeUnit.MILLISECONDS);
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - begin);
+        stop.set(true);
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+
+        System.out.println("  Returns: " + returns.get() + " in " + elapsed + " ms (" +
+                (returns.get() * 1000L / elapsed) + " returns/s)");
+
+        boolean ok = true;
+        int served = checkoutsPerHolder.size();
+        boolean noneTwice = checkoutsPerHolder.values().stream().allMatch(n -> n == 1);
+        System.out.println("  Holders served: " + served + " (expected " + HOLDERS + ")");
+        System.out.println("  Holder checked out more than once: " + !noneTwice + " (expected false)");
+        System.out.println("  Walk-in checkouts while holds were queued: " + walkInWins.get() + " (expected 0)");
+        ok &= served == HOLDERS && noneTwice && walkInWins.get() == 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int fulfilled = TestFixtures.queryInt(conn, "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status = 'FULFILLED'", bookId);
+            int open = TestFixtures.queryInt(conn, "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status IN ('PENDING','READY')", bookId);
+            int doubleIssued = TestFixtures.queryInt(conn,
+                    "SELECT COUNT(*) FROM (SELECT l.copy_id FROM loans l JOIN copies c ON l.copy_id = c.copy_id " +
+                    "WHERE c.book_id = ? AND l.return_date IS NULL GROUP BY l.copy_id HAVING COUNT(*) > 1) d", bookId);
+            int sharedCopies = TestFixtures.queryInt(conn,
+                    "SELECT COUNT(*) FROM (SELECT copy_id FROM holds WHERE book_id = ? AND status = 'READY' " +
+                    "GROUP BY copy_id HAVING COUNT(*) > 1) d", bookId);
+            int available = TestFixtures.queryInt(conn, "SELECT available_copies FROM books WHERE book_id = ?", bookId);
+
+            System.out.println("  Holds fulfilled: " + fulfilled + " (expected " + HOLDERS + "), still open: " + open);
+            System.out.println("  Copies on more than one active loan: " + doubleIssued + " (expected 0)");
+            System.out.println("  Copies reserved for more than one hold: " + sharedCopies + " (expected 0)");
+            System.out.println("  available_copies counter: " + available + " (expected 0)");
+            ok &= fulfilled == HOLDERS && open == 0 && doubleIssued == 0 && sharedCopies == 0 && available == 0;
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,259 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory copy of every book's PENDING hold queue, ordered by (place_date, hold_id).
+// Each queue is an order-statistic treap, so a hold's position, the queue length and the
+// next hold in line are O(log n) instead of COUNT queries over the holds table.
+// ReservationService keeps it in sync on every hold change; it is rebuilt at startup.
+public class HoldQueueIndex {
+
+    private static final HoldQueueIndex instance = new HoldQueueIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Node> queues = new HashMap<>();
+    private Map<Integer, Key> keys = new HashMap<>();
+    private volatile boolean ready;
+
+    // Changes made while a rebuild is reading the table; replayed after the swap
+    private List<Runnable> journal;
+
+    private HoldQueueIndex() {
+    }
+
+    public static HoldQueueIndex getInstance() {
+        return instance;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, Node> newQueues = new HashMap<>();
+        Map<Integer, Key> newKeys = new HashMap<>();
+        String sql = "SELECT hold_id, book_id, place_date FROM holds WHERE status = 'PENDING'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                Key key = new Key(rs.getInt("book_id"), rs.getTimestamp("place_date").getTime(), rs.getInt("hold_id"));
+                newKeys.put(key.holdId, key);
+                newQueues.put(key.bookId, insert(newQueues.get(key.bookId), new Node(key)));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error building hold queue index: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            queues = newQueues;
+            keys = newKeys;
+            for (Runnable change : journal) {
+                change.run();
+            }
+            journal = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Hold queue index built: " + newKeys.size() + " pending holds on " +
+                newQueues.size() + " books in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void add(int bookId, int holdId, Timestamp placeDate) {
+        lock.writeLock().lock();
+        try {
+            Key key = new Key(bookId, placeDate.getTime(), holdId);
+            apply(() -> {
+                doRemove(holdId);
+                keys.put(holdId, key);
+                queues.put(bookId, insert(queues.get(bookId), new Node(key)));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int holdId) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> doRemove(holdId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 1-based position of a pending hold in its book's queue, or -1 if it is not queued
+    public int position(int holdId) {
+        lock.readLock().lock();
+        try {
+            Key key = keys.get(holdId);
+            if (key == null) {
+                return -1;
+            }
+            return countBefore(queues.get(key.bookId), key) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int length(int bookId) {
+        lock.readLock().lock();
+        try {
+            return size(queues.get(bookId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Hold id of the next pending hold for the book, or -1 if nobody is waiting
+    public int peek(int bookId) {
+        lock.readLock().lock();
+        try {
+            Node node = queues.get(bookId);
+            if (node == null) {
+                return -1;
+            }
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node.key.holdId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private void doRemove(int holdId) {
+        Key key = keys.remove(holdId);
+        if (key == null) {
+            return;
+        }
+        Node[] parts = split(queues.get(key.bookId), key, false);  // < key | >= key
+        Node[] rest = split(parts[1], key, true);                   // == key | > key
+        Node root = merge(parts[0], rest[1]);
+        if (root == null) {
+            queues.remove(key.bookId);
+        } else {
+            queues.put(key.bookId, root);
+        }
+    }
+
+    private static Node insert(Node root, Node node) {
+        Node[] parts = split(root, node.key, false);
+        return merge(merge(parts[0], node), parts[1]);
+    }
+
+    private static int countBefore(Node node, Key key) {
+        int count = 0;
+        while (node != null) {
+            if (node.key.compareTo(key) < 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    // Splits into keys below the given key and the rest; with inclusive, the key itself goes left
+    private static Node[] split(Node node, Key key, boolean inclusive) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        int c = node.key.compareTo(key);
+        if (c < 0 || (inclusive && c == 0)) {
+            Node[] parts = split(node.right, key, inclusive);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, key, inclusive);
+        node.left = parts[1];
+        node.update();
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Key implements Comparable<Key> {
+        final int bookId;
+        final long placeMillis;
+        final int holdId;
+
+        Key(int bookId, long placeMillis, int holdId) {
+            this.bookId = bookId;
+            this.placeMillis = placeMillis;
+            this.holdId = holdId;
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(placeMillis, o.placeMillis);
+            return c != 0 ? c : Integer.compare(holdId, o.holdId);
+        }
+    }
+
+    private static class Node {
+        final Key key;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(Key key) {
+            this.key = key;
+        }
+
+        void update() {
+            size = 1 + HoldQueueIndex.size(left) + HoldQueueIndex.size(right);
+        }
+    }
+}
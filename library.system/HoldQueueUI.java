@@ -10,6 +10,7 @@ public class HoldQueueUI extends JFrame {
     private JTextField bookIdField;
     private JTable table;
     private DefaultTableModel model;
+    private final BackgroundTasks.Latest loadTask = new BackgroundTasks.Latest();
 
     public HoldQueueUI() {
         setTitle("Hold Queue Management");
@@ -66,7 +67,10 @@ public class HoldQueueUI extends JFrame {
             return;
         }
 
-        List<Hold> queue = ReservationService.getQueueForBook(bookId);
+        loadTask.run(this, () -> ReservationService.getQueueForBook(bookId), this::showQueue);
+    }
+
+    private void showQueue(List<Hold> queue) {
         model.setRowCount(0);
 
         if (queue.isEmpty()) {
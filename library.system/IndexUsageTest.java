@@ -0,0 +1,221 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Runs EXPLAIN on the hot service queries and checks that each one reads its main table
+// through an index from MigrationRunner.INDEX_PACK rather than a full scan. Seeds enough
+// rows for the optimizer to prefer indexes. Needs the library_db database to be reachable.
+public class IndexUsageTest {
+
+    private static final int BOOKS = 300;
+    private static final int COPIES_PER_BOOK = 3;
+    private static final int MEMBERS = 400;
+
+    private static final List<Integer> bookIds = new ArrayList<>();
+    private static final List<Integer> copyIds = new ArrayList<>();
+    private static final List<Integer> memberIds = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== INDEX USAGE TEST ===");
+        MigrationRunner.migrate(false);
+
+        String tag = "IDX-" + System.currentTimeMillis();
+        boolean passed = true;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            seed(conn, tag);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE TABLE books, copies, loans, holds, fines, members");
+            }
+
+            int book = bookIds.get(BOOKS / 2);
+            int member = memberIds.get(MEMBERS / 2);
+            int copy = copyIds.get(copyIds.size() / 2);
+            String pageTitle = "Index Test " + tag + " " + (BOOKS / 2);
+
+            passed &= check(conn, "claim available copy", "copies",
+                    "SELECT copy_id FROM copies WHERE book_id = ? AND status = 'AVAILABLE' " +
+                    "ORDER BY copy_id LIMIT 1", new Object[]{book}, "idx_copies_book_status");
+            passed &= check(conn, "member's active loan of a book", "l",
+                    "SELECT loan_id FROM loans l JOIN copies c ON l.copy_id = c.copy_id " +
+                    "WHERE c.book_id = ? AND l.member_id = ? AND l.return_date IS NULL",
+                    new Object[]{book, member}, "idx_loans_member_open", "idx_loans_copy_open");
+            passed &= check(conn, "member's active loans", "loans",
+                    "SELECT COUNT(*) FROM loans WHERE member_id = ? AND return_date IS NULL",
+                    new Object[]{member}, "idx_loans_member_open");
+            passed &= check(conn, "active loan of a copy", "loans",
+                    "SELECT loan_id FROM loans WHERE copy_id = ? AND return_date IS NULL",
+                    new Object[]{copy}, "idx_loans_copy_open");
+            passed &= check(conn, "next hold in queue", "holds",
+                    "SELECT hold_id, member_id, place_date FROM holds WHERE book_id = ? AND status = 'PENDING' " +
+                    "ORDER BY place_date ASC, hold_id ASC LIMIT 1", new Object[]{book}, "idx_holds_queue");
+            passed &= check(conn, "queue length", "holds",
+                    "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status = 'PENDING'",
+                    new Object[]{book}, "idx_holds_queue");
+            passed &= check(conn, "member's READY holds", "holds",
+                    "SELECT book_id, hold_id, copy_id FROM holds WHERE member_id = ? AND status = 'READY'",
+                    new Object[]{member}, "idx_holds_member");
+            passed &= check(conn, "unpaid fine total", "fines",
+                    "SELECT COALESCE(SUM(amount), 0) FROM fines WHERE member_id = ? AND status = 'UNPAID'",
+                    new Object[]{member}, "idx_fines_member_status");
+            passed &= check(conn, "fine list page", "f",
+                    "SELECT f.fine_id, m.name, f.amount, f.reason, f.status FROM fines f " +
+                    "JOIN members m ON f.member_id = m.member_id ORDER BY f.status DESC, f.fine_id DESC LIMIT 50",
+                    new Object[0], "idx_fines_status");
+            passed &= check(conn, "catalog page after a title", "books",
+                    "SELECT book_id, isbn, title, author, category, publication_year, available_copies, total_copies " +
+                    "FROM books WHERE 1 = 1 AND (title > ? OR (title = ? AND book_id > ?)) " +
+                    "ORDER BY title, book_id LIMIT ?",
+                    new Object[]{pageTitle, pageTitle, book, 51}, "idx_books_title");
+            passed &= check(conn, "member picker", "members",
+                    "SELECT member_id, name FROM members ORDER BY name, member_id",
+                    new Object[0], "idx_members_name");
+
+        } finally {
+            cleanUp();
+            DatabaseConnection.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (passed ? "PASSED" : "FAILED"));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean check(Connection conn, String name, String table, String sql,
+                                 Object[] params, String... expected) throws SQLException {
+        String type = null;
+        String key = null;
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (table.equals(rs.getString("table"))) {
+                        type = rs.getString("type");
+                        key = rs.getString("key");
+                    }
+                }
+            }
+        }
+        boolean ok = key != null && !"ALL".equals(type) && Arrays.asList(expected).contains(key);
+        System.out.printf("  %-32s %-6s %s: type=%s key=%s (expected %s)%n",
+                name, ok ? "OK" : "FAIL", table, type, key, String.join(" or ", expected));
+        return ok;
+    }
+
+    private static void seed(Connection conn, String tag) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO books (isbn, title, author, category, publication_year, total_copies, available_copies) " +
+                "VALUES (?, ?, 'Index Test', 'Test', 2024, ?, 0)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < BOOKS; i++) {
+                ps.setString(1, tag + "-" + i);
+                ps.setString(2, "Index Test " + tag + " " + i);
+                ps.setInt(3, COPIES_PER_BOOK);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            collectKeys(ps, bookIds);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO copies (book_id, status) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int bookId : bookIds) {
+                for (int c = 0; c < COPIES_PER_BOOK; c++) {
+                    ps.setInt(1, bookId);
+                    ps.setString(2, c == 0 ? "CHECKED_OUT" : "AVAILABLE");
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+            collectKeys(ps, copyIds);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO members (name, email, password_hash, role) VALUES (?, ?, 'x', 'MEMBER')",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < MEMBERS; i++) {
+                ps.setString(1, "Index Member " + i);
+                ps.setString(2, tag.toLowerCase() + "-" + i + "@test.local");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            collectKeys(ps, memberIds);
+        }
+        // Mostly returned history plus one active loan per book
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO loans (copy_id, member_id, checkout_date, due_date, return_date) " +
+                "VALUES (?, ?, DATE_SUB(CURRENT_DATE, INTERVAL ? DAY), DATE_SUB(CURRENT_DATE, INTERVAL ? DAY), ?)")) {
+            for (int i = 0; i < copyIds.size() * 4; i++) {
+                int copy = copyIds.get(i % copyIds.size());
+                boolean active = i < copyIds.size() && i % COPIES_PER_BOOK == 0;
+                int age = active ? 3 : 30 + i % 300;
+                ps.setInt(1, copy);
+                ps.setInt(2, memberIds.get(i % MEMBERS));
+                ps.setInt(3, age);
+                ps.setInt(4, age - 14);
+                ps.setDate(5, active ? null : new Date(System.currentTimeMillis() - (age - 10) * 86_400_000L));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO holds (book_id, member_id, status) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < MEMBERS * 2; i++) {
+                ps.setInt(1, bookIds.get(i % BOOKS));
+                ps.setInt(2, memberIds.get((i * 7) % MEMBERS));
+                ps.setString(3, i % 5 == 0 ? "PENDING" : (i % 5 == 1 ? "READY" : "FULFILLED"));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO fines (member_id, amount, reason, status) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < MEMBERS * 2; i++) {
+                ps.setInt(1, memberIds.get(i % MEMBERS));
+                ps.setBigDecimal(2, new java.math.BigDecimal("1.50"));
+                ps.setString(3, "Index test " + i);
+                ps.setString(4, i % 3 == 0 ? "UNPAID" : "PAID");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static void collectKeys(PreparedStatement ps, List<Integer> into) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                into.add(keys.getInt(1));
+            }
+        }
+    }
+
+    private static void cleanUp() {
+        if (bookIds.isEmpty() && memberIds.isEmpty()) {
+            return;
+        }
+        String books = join(bookIds);
+        String members = join(memberIds);
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM fines WHERE member_id IN (" + members + ")");
+            stmt.executeUpdate("DELETE FROM holds WHERE book_id IN (" + books + ")");
+            stmt.executeUpdate("DELETE l FROM loans l JOIN copies c ON l.copy_id = c.copy_id WHERE c.book_id IN (" + books + ")");
+            stmt.executeUpdate("DELETE FROM copies WHERE book_id IN (" + books + ")");
+            stmt.executeUpdate("DELETE FROM books WHERE book_id IN (" + books + ")");
+            stmt.executeUpdate("DELETE FROM members WHERE member_id IN (" + members + ")");
+        } catch (SQLException e) {
+            System.err.println("Cleanup failed: " + e.getMessage());
+        }
+    }
+
+    private static String join(List<Integer> ids) {
+        StringBuilder sb = new StringBuilder("0");
+        for (int id : ids) {
+            sb.append(',').append(id);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,180 @@
+package librarysystem;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Table model that only holds the rows the user is looking at. Rows are fetched in
+// fixed-size blocks the first time the JTable asks for them, and only the most recently
+// used blocks are kept. Sorting and filtering are pushed down to the RowSource.
+public class LazyTableModel extends AbstractTableModel {
+
+    public interface RowSource {
+        int count(String filter) throws SQLException;
+
+        // after is the last row of the block just before offset when it is loaded, so the
+        // source can seek past it; null means only the offset is known. Rows may carry
+        // extra values after the table's columns, which the model ignores.
+        List<Object[]> fetch(String filter, int sortColumn, boolean ascending,
+                             int offset, int limit, Object[] after) throws SQLException;
+    }
+
+    private static final int BLOCK_SIZE = 100;
+    private static final int MAX_BLOCKS = 20;
+
+    private final String[] columns;
+    private final RowSource source;
+
+    private final Map<Integer, List<Object[]>> blocks =
+            new LinkedHashMap<Integer, List<Object[]>>(MAX_BLOCKS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                    return size() > MAX_BLOCKS;
+                }
+            };
+    private final Set<Integer> pending = new HashSet<>();
+
+    private int rowCount;
+    private String filter = "";
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private int generation;
+
+    public LazyTableModel(String[] columns, RowSource source) {
+        this.columns = columns;
+        this.source = source;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    // Returns null while the row's block is still loading; the table repaints once it arrives.
+    @Override
+    public Object getValueAt(int row, int column) {
+        int block = row / BLOCK_SIZE;
+        List<Object[]> rows = blocks.get(block);
+        if (rows == null) {
+            requestBlock(block);
+            return null;
+        }
+        int index = row % BLOCK_SIZE;
+        return index < rows.size() ? rows.get(index)[column] : null;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter == null ? "" : filter.trim();
+        refresh();
+    }
+
+    public void sortBy(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        refresh();
+    }
+
+    // Clicking a column header sorts on the server instead of in the JTable
+    public void installHeaderSorting(JTable table) {
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                sortBy(table.convertColumnIndexToModel(viewColumn));
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    int modelColumn = table.convertColumnIndexToModel(i);
+                    String name = columns[modelColumn];
+                    if (modelColumn == sortColumn) {
+                        name += ascending ? " ▲" : " ▼";
+                    }
+                    table.getColumnModel().getColumn(i).setHeaderValue(name);
+                }
+                header.repaint();
+            }
+        });
+    }
+
+    public void refresh() {
+        final int gen = ++generation;
+        blocks.clear();
+        pending.clear();
+        final String f = filter;
+
+        BackgroundTasks.run(null, () -> source.count(f), count -> {
+            if (gen != generation) {
+                return;
+            }
+            rowCount = count;
+            fireTableDataChanged();
+        }, e -> {
+            if (gen != generation) {
+                return;
+            }
+            System.err.println("Error counting rows: " + e.getMessage());
+            rowCount = 0;
+            fireTableDataChanged();
+        });
+    }
+
+    private void requestBlock(int block) {
+        if (!pending.add(block)) {
+            return;
+        }
+        final int gen = generation;
+        final String f = filter;
+        final int col = sortColumn;
+        final boolean asc = ascending;
+        List<Object[]> previous = block > 0 ? blocks.get(block - 1) : null;
+        final Object[] after = previous != null && previous.size() == BLOCK_SIZE
+                ? previous.get(BLOCK_SIZE - 1) : null;
+
+        BackgroundTasks.run(null, () -> source.fetch(f, col, asc, block * BLOCK_SIZE, BLOCK_SIZE, after), rows -> {
+            if (gen != generation) {
+                return;
+            }
+            pending.remove(block);
+            blocks.put(block, rows);
+            int first = block * BLOCK_SIZE;
+            int last = Math.min(rowCount, first + BLOCK_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, e -> {
+            if (gen == generation) {
+                pending.remove(block); // asked for again the next time the table paints it
+            }
+            System.err.println("Error loading rows: " + e.getMessage());
+        });
+    }
+}
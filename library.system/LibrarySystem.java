@@ -1,9 +1,30 @@
 package librarysystem;
 
 public class LibrarySystem {
+
+    // How long a READY hold waits for pickup; override with -Dlibrary.holdPickupDays=N
+    private static final int HOLD_PICKUP_DAYS = Integer.getInteger("library.holdPickupDays", 3);
+    private static final int API_THREADS = Integer.getInteger("library.apiThreads", 64);
+
+    // --api[=port] also serves the HTTP API (default port 8080); --headless serves only the API
     public static void main(String[] args) {
+        int apiPort = -1;
+        boolean headless = false;
+        for (String arg : args) {
+            if (arg.equals("--api")) {
+                apiPort = 8080;
+            } else if (arg.startsWith("--api=")) {
+                apiPort = Integer.parseInt(arg.substring("--api=".length()));
+            } else if (arg.equals("--headless")) {
+                headless = true;
+            }
+        }
+        if (headless && apiPort < 0) {
+            apiPort = 8080;
+        }
+
         System.out.println("🚀 Library Management System - Clean Start");
-        System.out.println("Using Java Built-in Security (SHA-256 with Salt)");
+        System.out.println("Using Java Built-in Security (PBKDF2-HMAC-SHA256)");
         
         try {
             // Step 1: Test database connection
@@ -13,20 +34,41 @@ public class LibrarySystem {
                 System.out.println("   ✅ Database connection successful!");
                 conn.close();
             }
+            System.out.println("   " + DatabaseConnection.getPoolStats());
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::shutdown));
             
-            // Step 2: Reset database with new password hashing
-            System.out.println("\n2. Setting up database with secure password hashing...");
-            DatabaseSetup.runFullSetup();
+            // Step 2: Bring the schema up to date; existing data is kept
+            System.out.println("\n2. Checking database schema...");
+            MigrationRunner.migrate(false);
+            DatabaseSetup.seedIfEmpty();
+            AvailabilityReconciler.start(15);
+            HoldExpirySweeper.start(15, HOLD_PICKUP_DAYS);
+            FineAccrualEngine.start(60);
+            // Ready-for-pickup messages; -Dlibrary.notificationLog=<file> writes them to a file instead of stdout
+            NotificationDispatcher.start(30, new LogNotifier(System.getProperty("library.notificationLog")));
+            new Thread(() -> {
+                CatalogIndex.getInstance().rebuild();
+                AutocompleteIndex.getInstance().rebuild();
+                HoldQueueIndex.getInstance().rebuild();
+            }, "catalog-index-build").start();
             
             // Step 3: Show success message
             System.out.println("\n🎉 SYSTEM READY!");
-            System.out.println("✅ Database initialized with secure password hashing");
-            System.out.println("✅ Authentication system using Java SHA-256 with salt");
+            System.out.println("✅ Database schema at version " + MigrationRunner.currentVersion());
+            System.out.println("✅ Authentication system using PBKDF2 password hashing");
             System.out.println("✅ Role-based access control ready");
             System.out.println("\nTest Credentials:");
             System.out.println("   Librarian: librarian@library.com / Librarian123!");
             System.out.println("   Member:    john@email.com / Member123!");
             
+            if (apiPort >= 0) {
+                ApiServer.start(apiPort, API_THREADS);
+                Runtime.getRuntime().addShutdownHook(new Thread(ApiServer::stop));
+            }
+            if (headless) {
+                return;
+            }
+
             // Step 4: Launch login system
             javax.swing.SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
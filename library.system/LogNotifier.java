@@ -0,0 +1,35 @@
+package librarysystem;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+// Notifier that writes each message as a line to a file, or to stdout when no file is
+// given. Used until a real mail gateway is configured, and by tests.
+public class LogNotifier implements Notifier {
+
+    private final String path;
+
+    public LogNotifier(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void send(Notification n) throws IOException {
+        String line = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) +
+                " " + n.getEventType() + " to=" + n.getEmail() + " hold=" + n.getHoldId() +
+                " " + n.getMessage();
+        if (path == null) {
+            System.out.println(line);
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(path, true))) {
+            out.println(line);
+            if (out.checkError()) {
+                throw new IOException("Could not write to " + path);
+            }
+        }
+    }
+}
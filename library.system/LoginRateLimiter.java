@@ -0,0 +1,306 @@
+package librarysystem;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Throttles login attempts before they reach the database. Every email and every client
+// (IP address, or the desk for the Swing client) has:
+//  - a token bucket: a burst of attempts, then a steady refill rate
+//  - a sliding-window failure counter: too many failed logins in the window locks the key
+//    out until old failures age out of the window
+// Each key's state is packed into AtomicLongs and updated by CAS, so an attempt costs a
+// map lookup and a couple of CAS operations, with no locks.
+public class LoginRateLimiter {
+
+    private static final int TOKEN_BITS = 21;               // milli-tokens, capacity up to 2097
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+    private static final int MAX_KEYS = 200_000;
+
+    private final Limits emailLimits;
+    private final Limits clientLimits;
+    private final long windowMillis;
+    private final long baseMillis = System.currentTimeMillis();
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleaner;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong lockedOut = new AtomicLong();
+
+    public LoginRateLimiter(Limits emailLimits, Limits clientLimits, long windowMillis) {
+        this.emailLimits = emailLimits;
+        this.clientLimits = clientLimits;
+        this.windowMillis = windowMillis;
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "login-limiter-cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, windowMillis / 4);
+        cleaner.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Limits used by AuthService, overridable with -Dlibrary.login.* properties
+    public static LoginRateLimiter fromConfig() {
+        return new LoginRateLimiter(
+                new Limits(Integer.getInteger("library.login.emailBurst", 5),
+                           Integer.getInteger("library.login.emailPerMinute", 5) / 60.0,
+                           Integer.getInteger("library.login.emailMaxFailures", 10)),
+                new Limits(Integer.getInteger("library.login.clientBurst", 30),
+                           Integer.getInteger("library.login.clientPerMinute", 120) / 60.0,
+                           Integer.getInteger("library.login.clientMaxFailures", 100)),
+                TimeUnit.MINUTES.toMillis(Integer.getInteger("library.login.failureWindowMinutes", 15)));
+    }
+
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    // Takes one attempt from both buckets. Returns 0 if the attempt may go ahead, otherwise
+    // the number of seconds after which trying again makes sense.
+    public long tryAcquire(String email, String client) {
+        long now = System.currentTimeMillis() - baseMillis;
+        Entry e = entry("e:" + normalize(email), emailLimits, now);
+        Entry c = entry("c:" + client, clientLimits, now);
+
+        long wait = Math.max(lockoutMillis(e, now), lockoutMillis(c, now));
+        if (wait > 0) {
+            lockedOut.incrementAndGet();
+            return toSeconds(wait);
+        }
+        wait = take(e, now);
+        if (wait == 0) {
+            wait = take(c, now);
+            if (wait > 0) {
+                refund(e); // the attempt did not happen, so the email keeps its token
+            }
+        }
+        if (wait > 0) {
+            throttled.incrementAndGet();
+            return toSeconds(wait);
+        }
+        allowed.incrementAndGet();
+        return 0;
+    }
+
+    // Seconds until the key pair may try again, without using up an attempt
+    public long retryAfterSeconds(String email, String client) {
+        long now = System.currentTimeMillis() - baseMillis;
+        Entry e = entries.get("e:" + normalize(email));
+        Entry c = entries.get("c:" + client);
+        long wait = 0;
+        for (Entry entry : new Entry[]{e, c}) {
+            if (entry != null) {
+                wait = Math.max(wait, Math.max(lockoutMillis(entry, now), refillWait(entry, now)));
+            }
+        }
+        return wait == 0 ? 0 : toSeconds(wait);
+    }
+
+    public void recordFailure(String email, String client) {
+        long now = System.currentTimeMillis() - baseMillis;
+        addFailure(entry("e:" + normalize(email), emailLimits, now), now);
+        addFailure(entry("c:" + client, clientLimits, now), now);
+    }
+
+    // A correct password clears the email's failures; the client's stay, so one good
+    // account does not shield a client that guesses at many others
+    public void recordSuccess(String email) {
+        Entry e = entries.get("e:" + normalize(email));
+        if (e != null) {
+            e.failures.set(0);
+        }
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase();
+    }
+
+    private Entry entry(String key, Limits limits, long now) {
+        Entry e = entries.get(key);
+        if (e != null) {
+            e.lastSeen = now;
+            return e;
+        }
+        if (entries.size() >= MAX_KEYS) {
+            evictIdle();
+            if (entries.size() >= MAX_KEYS) {
+                return new Entry(limits, now); // untracked; the client key still applies
+            }
+        }
+        return entries.computeIfAbsent(key, k -> new Entry(limits, now));
+    }
+
+    // Token bucket: state = (refill timestamp << TOKEN_BITS) | milli-tokens
+    private long take(Entry e, long now) {
+        while (true) {
+            long s = e.bucket.get();
+            long tokens = refilled(e, s, now);
+            if (tokens < ONE_TOKEN) {
+                return (long) Math.ceil((ONE_TOKEN - tokens) / e.limits.milliTokensPerMilli);
+            }
+            long stamp = refillStamp(e, s, now, tokens);
+            if (e.bucket.compareAndSet(s, (stamp << TOKEN_BITS) | (tokens - ONE_TOKEN))) {
+                return 0;
+            }
+        }
+    }
+
+    private static void refund(Entry e) {
+        while (true) {
+            long s = e.bucket.get();
+            long tokens = Math.min((s & TOKEN_MASK) + ONE_TOKEN, e.limits.capacityMilli);
+            if (e.bucket.compareAndSet(s, (s & ~TOKEN_MASK) | tokens)) {
+                return;
+            }
+        }
+    }
+
+    private long refillWait(Entry e, long now) {
+        long tokens = refilled(e, e.bucket.get(), now);
+        return tokens >= ONE_TOKEN ? 0 : (long) Math.ceil((ONE_TOKEN - tokens) / e.limits.milliTokensPerMilli);
+    }
+
+    private static long refilled(Entry e, long s, long now) {
+        long elapsed = Math.max(0, now - (s >>> TOKEN_BITS));
+        long tokens = (s & TOKEN_MASK) + (long) (elapsed * e.limits.milliTokensPerMilli);
+        return Math.min(tokens, e.limits.capacityMilli);
+    }
+
+    // Only the time actually turned into tokens is consumed, so slow refill rates do not
+    // lose fractions of a token to rounding
+    private static long refillStamp(Entry e, long s, long now, long tokens) {
+        if (tokens >= e.limits.capacityMilli) {
+            return now;
+        }
+        long previous = s >>> TOKEN_BITS;
+        long added = tokens - (s & TOKEN_MASK);
+        return Math.min(now, previous + (long) (added / e.limits.milliTokensPerMilli));
+    }
+
+    // Sliding window counter: state = (window index << 32) | (previous count << 16) | current count.
+    // The estimate weights the previous window by how much of it still overlaps the last windowMillis.
+    private void addFailure(Entry e, long now) {
+        long index = now / windowMillis;
+        while (true) {
+            long s = e.failures.get();
+            long w = s >>> 32;
+            long prev = (s >>> 16) & 0xFFFF;
+            long curr = s & 0xFFFF;
+            long next;
+            if (index == w) {
+                next = (w << 32) | (prev << 16) | Math.min(curr + 1, 0xFFFF);
+            } else if (index == w + 1) {
+                next = (index << 32) | (curr << 16) | 1;
+            } else {
+                next = (index << 32) | 1;
+            }
+            if (e.failures.compareAndSet(s, next)) {
+                return;
+            }
+        }
+    }
+
+    private double failureEstimate(Entry e, long now) {
+        long s = e.failures.get();
+        long index = now / windowMillis;
+        long w = s >>> 32;
+        double overlap = 1.0 - (double) (now % windowMillis) / windowMillis;
+        if (index == w) {
+            return ((s >>> 16) & 0xFFFF) * overlap + (s & 0xFFFF);
+        }
+        if (index == w + 1) {
+            return (s & 0xFFFF) * overlap;
+        }
+        return 0;
+    }
+
+    private long lockoutMillis(Entry e, long now) {
+        if (failureEstimate(e, now) < e.limits.maxFailures) {
+            return 0;
+        }
+        // Conservative: by the end of the next window every current failure has aged out
+        return windowMillis - now % windowMillis + (e.failures.get() >>> 32 == now / windowMillis ? windowMillis : 0);
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis() - baseMillis;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            // After two windows the failures are gone and the bucket is full again
+            if (now - e.lastSeen > 2 * windowMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(allowed.get(), throttled.get(), lockedOut.get(), entries.size());
+    }
+
+    public static class Limits {
+        private final long capacityMilli;
+        private final double milliTokensPerMilli;
+        private final int maxFailures;
+
+        // burst attempts at once, refilled at perSecond; locked out at maxFailures per window
+        public Limits(int burst, double perSecond, int maxFailures) {
+            if (burst < 1 || burst * ONE_TOKEN > TOKEN_MASK || perSecond <= 0) {
+                throw new IllegalArgumentException("Invalid login rate limits");
+            }
+            this.capacityMilli = burst * ONE_TOKEN;
+            this.milliTokensPerMilli = perSecond; // tokens/s == milli-tokens/ms
+            this.maxFailures = maxFailures;
+        }
+    }
+
+    private static class Entry {
+        final Limits limits;
+        final AtomicLong bucket;
+        final AtomicLong failures = new AtomicLong();
+        volatile long lastSeen;
+
+        Entry(Limits limits, long now) {
+            this.limits = limits;
+            this.bucket = new AtomicLong((now << TOKEN_BITS) | limits.capacityMilli);
+            this.lastSeen = now;
+        }
+    }
+
+    public static class Stats {
+        private final long allowed;
+        private final long throttled;
+        private final long lockedOut;
+        private final int trackedKeys;
+
+        Stats(long allowed, long throttled, long lockedOut, int trackedKeys) {
+            this.allowed = allowed;
+            this.throttled = throttled;
+            this.lockedOut = lockedOut;
+            this.trackedKeys = trackedKeys;
+        }
+
+        public long getAllowed() { return allowed; }
+        public long getThrottled() { return throttled; }
+        public long getLockedOut() { return lockedOut; }
+        public int getTrackedKeys() { return trackedKeys; }
+
+        @Override
+        public String toString() {
+            return String.format("LoginLimiter{allowed=%d, throttled=%d, lockedOut=%d, keys=%d}",
+                    allowed, throttled, lockedOut, trackedKeys);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package librarysystem;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checks the login token buckets and failure lockout with short limits, then hammers one
+// key from many threads to verify that no extra attempts slip through. Needs no database.
+public class LoginRateLimiterTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== LOGIN RATE LIMITER TEST ===");
+        boolean ok = true;
+
+        // 5 attempts at once per email, refilled at 10/s; lockout at 3 failures per 2 s window
+        LoginRateLimiter limiter = new LoginRateLimiter(
+                new LoginRateLimiter.Limits(5, 10, 3),
+                new LoginRateLimiter.Limits(1000, 1000, 1000), 2_000);
+        try {
+            int allowed = 0;
+            for (int i = 0; i < 8; i++) {
+                if (limiter.tryAcquire("burst@test.local", "desk-1") == 0) {
+                    allowed++;
+                }
+            }
+            long fresh = limiter.retryAfterSeconds("fresh@test.local", "desk-1");
+            System.out.println("  Burst of 8 attempts, allowed: " + allowed + " (expected 5)");
+            System.out.println("  Retry-after for an untouched email: " + fresh + " (expected 0)");
+            ok &= allowed == 5 && fresh == 0;
+
+            Thread.sleep(250);
+            boolean refilled = limiter.tryAcquire("burst@test.local", "desk-1") == 0;
+            System.out.println("  Allowed again after refill: " + refilled + " (expected true)");
+            ok &= refilled;
+
+            for (int i = 0; i < 3; i++) {
+                limiter.tryAcquire("guess@test.local", "desk-2");
+                limiter.recordFailure("guess@test.local", "desk-2");
+            }
+            Thread.sleep(200);
+            long wait = limiter.tryAcquire("guess@test.local", "desk-2");
+            System.out.println("  Locked out after 3 failures: " + (wait > 0) + " (expected true, retry in " + wait + " s)");
+            boolean otherEmail = limiter.tryAcquire("other@test.local", "desk-2") == 0;
+            System.out.println("  Other email from the same desk allowed: " + otherEmail + " (expected true)");
+            ok &= wait > 0 && otherEmail;
+
+            limiter.tryAcquire("good@test.local", "desk-3");
+            limiter.recordFailure("good@test.local", "desk-3");
+            limiter.recordFailure("good@test.local", "desk-3");
+            limiter.recordSuccess("GOOD@test.local ");
+            limiter.recordFailure("good@test.local", "desk-3");
+            boolean reset = limiter.tryAcquire("good@test.local", "desk-3") == 0;
+            System.out.println("  Success clears the email's failures: " + reset + " (expected true)");
+            ok &= reset;
+        } finally {
+            limiter.shutdown();
+        }
+
+        // No refill to speak of: exactly the burst may pass, however many threads race for it
+        LoginRateLimiter shared = new LoginRateLimiter(
+                new LoginRateLimiter.Limits(1000, 0.001, 1_000_000),
+                new LoginRateLimiter.Limits(2000, 0.001, 1_000_000), 60_000);
+        try {
+            int threads = 32;
+            int perThread = 20_000;
+            AtomicInteger passed = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            if (shared.tryAcquire("victim@test.local", "botnet") == 0) {
+                                passed.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            long micros = Math.max(1, (System.nanoTime() - begin) / 1000);
+            pool.shutdown();
+
+            long attempts = (long) threads * perThread;
+            System.out.println("  " + attempts + " concurrent attempts, passed: " + passed.get() + " (expected 1000)");
+            System.out.println("  Throughput: " + (attempts * 1_000_000L / micros) + " attempts/s, " + shared.getStats());
+            ok &= passed.get() == 1000;
+        } finally {
+            shared.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (ok ? "PASSED" : "FAILED"));
+        System.exit(ok ? 0 : 1);
+    }
+}
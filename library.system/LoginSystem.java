@@ -113,30 +113,55 @@ private void handleLogin() {
         return;
     }
     
-    // Authenticate user
-    User user = AuthService.authenticate(email, password);
-    
-    if (user != null) {
-        // Start new session
-        SessionManager session = SessionManager.getInstance();
-        session.startSession(user);
-        
-        errorLabel.setText("Login successful! Welcome, " + user.getName());
-        errorLabel.setForeground(Color.BLUE);
-        
-        System.out.println("Login successful: " + user.getName() + " (" + user.getRole() + ")");
-        System.out.println("Session: " + session.getSessionInfo());
-        
-        // Close login window and open main application
-        frame.dispose();
-        openMainApplication(user);
-        
-    } else {
-        errorLabel.setText("Invalid email or password");
+    // Authenticate user off the EDT; hashing and the DB lookup can take a while
+    setControlsEnabled(false);
+    errorLabel.setText("Signing in...");
+    errorLabel.setForeground(Color.DARK_GRAY);
+    BackgroundTasks.run(frame, () -> AuthService.authenticate(email, password), user -> {
+        setControlsEnabled(true);
+        if (user != null) {
+            // Start new session
+            SessionManager session = SessionManager.getInstance();
+            session.startSession(user);
+            
+            errorLabel.setText("Login successful! Welcome, " + user.getName());
+            errorLabel.setForeground(Color.BLUE);
+            
+            System.out.println("Login successful: " + user.getName() + " (" + user.getRole() + ")");
+            System.out.println("Session: " + session.getSessionInfo());
+            
+            // Close login window and open main application
+            frame.dispose();
+            openMainApplication(user);
+            
+        } else if (AuthService.loginRetryAfterSeconds(email, AuthService.LOCAL_CLIENT) > 0) {
+            errorLabel.setText("Too many attempts. Try again in " +
+                    AuthService.loginRetryAfterSeconds(email, AuthService.LOCAL_CLIENT) + " s");
+            errorLabel.setForeground(Color.RED);
+            passwordField.setText("");
+        } else {
+            errorLabel.setText("Invalid email or password");
+            errorLabel.setForeground(Color.RED);
+            passwordField.setText(""); // Clear password field
+        }
+    }, ex -> {
+        setControlsEnabled(true);
+        if (ex instanceof AuthService.ServerBusyException) {
+            errorLabel.setText("Server busy, try again in a few seconds");
+        } else {
+            errorLabel.setText("Login failed: " + ex.getMessage());
+        }
         errorLabel.setForeground(Color.RED);
-        passwordField.setText(""); // Clear password field
+    });
+}
+
+    private void setControlsEnabled(boolean enabled) {
+        loginButton.setEnabled(enabled);
+        signupButton.setEnabled(enabled);
+        passwordField.setEnabled(enabled);
     }
-}    
+    
+
     private void handleSignup() {
         // Simple registration dialog
         String name = JOptionPane.showInputDialog(frame, "Enter your name:");
@@ -148,13 +173,18 @@ private void handleLogin() {
         String password = JOptionPane.showInputDialog(frame, "Enter your password:");
         if (password == null || password.trim().isEmpty()) return;
         
-        boolean registered = AuthService.registerUser(name, email, password, "MEMBER");
-        
-        if (registered) {
-            JOptionPane.showMessageDialog(frame, "Registration successful! You can now login.");
-        } else {
-            JOptionPane.showMessageDialog(frame, "Registration failed. Email may already exist.");
-        }
+        setControlsEnabled(false);
+        BackgroundTasks.run(frame, () -> AuthService.registerUser(name, email, password, "MEMBER"), registered -> {
+            setControlsEnabled(true);
+            if (registered) {
+                JOptionPane.showMessageDialog(frame, "Registration successful! You can now login.");
+            } else {
+                JOptionPane.showMessageDialog(frame, "Registration failed. Email may already exist.");
+            }
+        }, ex -> {
+            setControlsEnabled(true);
+            JOptionPane.showMessageDialog(frame, "Registration failed: " + ex.getMessage());
+        });
     }
     
 private void openMainApplication(User user) {
@@ -3,6 +3,7 @@ package librarysystem;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.AWTEventListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.Connection;
@@ -13,7 +14,7 @@ public class MainDashboard {
     private JFrame frame;
     private User currentUser;
     private JTabbedPane tabbedPane;
-    private Timer sessionTimer;
+    private AWTEventListener activityListener;
     
     public MainDashboard() {
         SessionManager session = SessionManager.getInstance();
@@ -105,10 +106,6 @@ public class MainDashboard {
             SessionManager session = SessionManager.getInstance();
             long minutes = session.getSessionDurationMinutes();
             timerLabel.setText("Session: " + minutes + " min");
-            
-            if (session.isSessionExpired()) {
-                handleSessionExpired();
-            }
         });
         timer.start();
         
@@ -119,14 +116,22 @@ public class MainDashboard {
         return statusPanel;
     }
     
+    // The session store expires the session itself; keyboard and mouse input in any
+    // window keeps it alive for the idle timeout
     private void startSessionTimer() {
-        sessionTimer = new Timer(60000, e -> {
-            SessionManager session = SessionManager.getInstance();
-            if (session.isSessionExpired()) {
-                handleSessionExpired();
-            }
-        });
-        sessionTimer.start();
+        SessionManager session = SessionManager.getInstance();
+        session.setExpiryListener(() -> SwingUtilities.invokeLater(this::handleSessionExpired));
+        activityListener = e -> session.touch();
+        Toolkit.getDefaultToolkit().addAWTEventListener(activityListener,
+                AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK);
+    }
+
+    private void stopSessionTimer() {
+        SessionManager.getInstance().setExpiryListener(null);
+        if (activityListener != null) {
+            Toolkit.getDefaultToolkit().removeAWTEventListener(activityListener);
+            activityListener = null;
+        }
     }
     
     private void handleLogout() {
@@ -134,9 +139,7 @@ public class MainDashboard {
             "Are you sure you want to logout?", "Confirm Logout", 
             JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            if (sessionTimer != null) {
-                sessionTimer.stop();
-            }
+            stopSessionTimer();
             SessionManager.getInstance().endSession();
             frame.dispose();
             new LoginSystem().show();
@@ -144,9 +147,7 @@ public class MainDashboard {
     }
     
     private void handleSessionExpired() {
-        if (sessionTimer != null) {
-            sessionTimer.stop();
-        }
+        stopSessionTimer();
         JOptionPane.showMessageDialog(frame, 
             "Your session has expired for security reasons. Please log in again.", 
             "Session Expired", 
@@ -276,8 +277,8 @@ private JPanel createLoanManagementPanel() {
             try {
                 int loanId = Integer.parseInt(loanIdInput);
                 BorrowingService service = new BorrowingService();
-                String result = service.renewLoan(loanId);
-                JOptionPane.showMessageDialog(frame, result, "Renewal Status", JOptionPane.INFORMATION_MESSAGE);
+                BackgroundTasks.run(frame, () -> service.renewLoan(loanId), result ->
+                        JOptionPane.showMessageDialog(frame, result, "Renewal Status", JOptionPane.INFORMATION_MESSAGE));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Invalid Loan ID format.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -408,28 +409,32 @@ private JPanel createLoanManagementPanel() {
 
         int memberId = current.getMemberId();
 
-        String[][] data = ReservationService.getHoldsForMemberTableData(memberId);
-
         String[] columnNames = {"Hold ID", "Book Title", "Status", "Placed At"};
-
-        JTable holdsTable = new JTable(data, columnNames) {
+        DefaultTableModel holdsModel = new DefaultTableModel(columnNames, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
             }
         };
+
+        JTable holdsTable = new JTable(holdsModel);
         holdsTable.setRowHeight(24);
 
         JScrollPane scrollPane = new JScrollPane(holdsTable);
 
         JPanel infoPanel = new JPanel(new BorderLayout());
-        JLabel infoLabel;
+        JLabel infoLabel = new JLabel("Loading holds...", JLabel.LEFT);
 
-        if (data.length == 0) {
-            infoLabel = new JLabel("You have 0 active holds.", JLabel.LEFT);
-        } else {
-            infoLabel = new JLabel("You currently have " + data.length + " hold(s).", JLabel.LEFT);
-        }
+        BackgroundTasks.run(panel, () -> ReservationService.getHoldsForMemberTableData(memberId), data -> {
+            for (String[] row : data) {
+                holdsModel.addRow(row);
+            }
+            if (data.length == 0) {
+                infoLabel.setText("You have 0 active holds.");
+            } else {
+                infoLabel.setText("You currently have " + data.length + " hold(s).");
+            }
+        }, ex -> infoLabel.setText("Could not load holds: " + ex.getMessage()));
 
         infoPanel.add(infoLabel, BorderLayout.NORTH);
         infoPanel.add(scrollPane, BorderLayout.CENTER);
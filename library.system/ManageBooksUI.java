@@ -1,17 +1,14 @@
 package librarysystem;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.sql.*;
-import java.util.Vector;
 
 public class ManageBooksUI extends JFrame {
 
     private JTextField isbnField, titleField, authorField, categoryField, yearField;
     private JTable booksTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel tableModel;
+    private final BookService bookService = new BookService();
 
     public ManageBooksUI() {
         setTitle("Manage Books");
@@ -54,10 +51,18 @@ public class ManageBooksUI extends JFrame {
 
         // Table to show books
         String[] columns = {"ID", "ISBN", "Title", "Author", "Category", "Year"};
-        tableModel = new DefaultTableModel(columns, 0);
+        tableModel = new LazyTableModel(columns, bookService.getBooksRowSource());
         booksTable = new JTable(tableModel);
+        tableModel.installHeaderSorting(booksTable);
         add(new JScrollPane(booksTable), BorderLayout.CENTER);
 
+        JTextField filterField = new JTextField(25);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Filter:"));
+        filterPanel.add(filterField);
+        add(filterPanel, BorderLayout.SOUTH);
+
         // Load data immediately when window opens
         loadBooksData();
 
@@ -67,39 +72,27 @@ public class ManageBooksUI extends JFrame {
     }
 
     private void loadBooksData() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books")) {
-
-            tableModel.setRowCount(0); // Clear table
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("book_id"));
-                row.add(rs.getString("isbn"));
-                row.add(rs.getString("title"));
-                row.add(rs.getString("author"));
-                row.add(rs.getString("category"));
-                row.add(rs.getInt("publication_year"));
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading books: " + e.getMessage());
-        }
+        tableModel.refresh();
     }
 
     private void addBook() {
-        String sql = "INSERT INTO books (isbn, title, author, category, publication_year) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, isbnField.getText());
-            pstmt.setString(2, titleField.getText());
-            pstmt.setString(3, authorField.getText());
-            pstmt.setString(4, categoryField.getText());
-            pstmt.setInt(5, Integer.parseInt(yearField.getText()));
-            
-            pstmt.executeUpdate();
+        String isbn = isbnField.getText();
+        String title = titleField.getText();
+        String author = authorField.getText();
+        String category = categoryField.getText();
+        int year;
+        try {
+            year = Integer.parseInt(yearField.getText());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Error adding book: " + e.getMessage());
+            return;
+        }
+
+        BackgroundTasks.run(this, () -> bookService.addBook(isbn, title, author, category, year), result -> {
+            if (!result.startsWith("SUCCESS")) {
+                JOptionPane.showMessageDialog(this, "Error adding book: " + result);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Book Added Successfully!");
             
             // Clear fields and reload table
@@ -109,10 +102,7 @@ public class ManageBooksUI extends JFrame {
             categoryField.setText("");
             yearField.setText("");
             loadBooksData();
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error adding book: " + e.getMessage());
-        }
+        }, e -> JOptionPane.showMessageDialog(this, "Error adding book: " + e.getMessage()));
     }
 
     private void deleteBook() {
@@ -122,18 +112,20 @@ public class ManageBooksUI extends JFrame {
             return;
         }
 
-        int bookId = (int) tableModel.getValueAt(selectedRow, 0);
+        Object id = tableModel.getValueAt(selectedRow, 0);
+        if (id == null) {
+            JOptionPane.showMessageDialog(this, "That row is still loading. Please try again.");
+            return;
+        }
+        int bookId = ((Number) id).intValue();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("DELETE FROM books WHERE book_id = ?")) {
-            
-            pstmt.setInt(1, bookId);
-            pstmt.executeUpdate();
+        BackgroundTasks.run(this, () -> bookService.deleteBook(bookId), result -> {
+            if (!result.startsWith("SUCCESS")) {
+                JOptionPane.showMessageDialog(this, "Error deleting book: " + result);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Book Deleted!");
             loadBooksData();
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error deleting book: " + e.getMessage());
-        }
+        }, e -> JOptionPane.showMessageDialog(this, "Error deleting book: " + e.getMessage()));
     }
 }
@@ -2,18 +2,18 @@ package librarysystem;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.*;
-import java.util.Vector;
+import java.math.BigDecimal;
 
 public class ManageFinesUI extends JFrame {
 
     private JTable finesTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel tableModel;
     private JComboBox<String> memberCombo;
     private JTextField amountField;
     private JTextField reasonField;
+    private final FineService fineService = new FineService();
+    private final MemberService memberService = new MemberService();
 
     public ManageFinesUI() {
         setTitle("Manage Fines");
@@ -46,14 +46,10 @@ public class ManageFinesUI extends JFrame {
         add(inputPanel, BorderLayout.NORTH);
 
         String[] columns = {"Fine ID", "Member Name", "Amount", "Reason", "Status"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new LazyTableModel(columns, fineService.getFinesRowSource());
         
         finesTable = new JTable(tableModel);
+        tableModel.installHeaderSorting(finesTable);
         
         finesTable.getColumnModel().getColumn(4).setCellRenderer(new StatusRenderer());
 
@@ -63,47 +59,35 @@ public class ManageFinesUI extends JFrame {
         payBtn.setFont(new Font("Arial", Font.BOLD, 14));
         payBtn.setBackground(new Color(144, 238, 144));
         payBtn.addActionListener(e -> payFine());
-        add(payBtn, BorderLayout.SOUTH);
+
+        JTextField filterField = new JTextField(20);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bottomPanel.add(new JLabel("Filter (Member, Reason, Status):"));
+        bottomPanel.add(filterField);
+        bottomPanel.add(payBtn);
+        add(bottomPanel, BorderLayout.SOUTH);
 
         loadFines();
     }
 
     private void loadMembersToCombo() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT member_id, name FROM members")) {
-
-            while (rs.next()) {
-                String item = rs.getInt("member_id") + " - " + rs.getString("name");
+        BackgroundTasks.run(this, () -> {
+            java.util.List<String> items = new java.util.ArrayList<>();
+            for (User member : memberService.getMembersByName()) {
+                items.add(member.getMemberId() + " - " + member.getName());
+            }
+            return items;
+        }, items -> {
+            for (String item : items) {
                 memberCombo.addItem(item);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        }, Throwable::printStackTrace);
     }
 
     private void loadFines() {
-        String sql = "SELECT f.fine_id, m.name, f.amount, f.reason, f.status " +
-                     "FROM fines f JOIN members m ON f.member_id = m.member_id " +
-                     "ORDER BY f.status DESC, f.fine_id DESC";
-                     
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("fine_id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getDouble("amount"));
-                row.add(rs.getString("reason"));
-                row.add(rs.getString("status"));
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading fines: " + e.getMessage());
-        }
+        tableModel.refresh();
     }
 
     private void issueFine() {
@@ -112,7 +96,7 @@ public class ManageFinesUI extends JFrame {
             if (selectedItem == null) return;
             
             int memberId = Integer.parseInt(selectedItem.split(" - ")[0]);
-            double amount = Double.parseDouble(amountField.getText());
+            BigDecimal amount = new BigDecimal(amountField.getText().trim());
             String reason = reasonField.getText();
 
             if (reason.isEmpty()) {
@@ -120,26 +104,20 @@ public class ManageFinesUI extends JFrame {
                 return;
             }
 
-            String sql = "INSERT INTO fines (member_id, amount, reason, status) VALUES (?, ?, ?, 'UNPAID')";
-            try (Connection conn = DatabaseConnection.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setInt(1, memberId);
-                pstmt.setDouble(2, amount);
-                pstmt.setString(3, reason);
-                pstmt.executeUpdate();
-                
+            BackgroundTasks.run(this, () -> fineService.issueFine(memberId, amount, reason), result -> {
+                if (!result.startsWith("SUCCESS")) {
+                    JOptionPane.showMessageDialog(this, result);
+                    return;
+                }
                 JOptionPane.showMessageDialog(this, "Fine Issued Successfully!");
                 loadFines();
                 
                 amountField.setText("");
                 reasonField.setText("");
-            }
+            }, e -> JOptionPane.showMessageDialog(this, "Error: " + e.getMessage()));
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Please enter a valid number for amount.");
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
         }
     }
 
@@ -150,26 +128,27 @@ public class ManageFinesUI extends JFrame {
             return;
         }
 
-        String currentStatus = (String) tableModel.getValueAt(selectedRow, 4);
+        Object id = tableModel.getValueAt(selectedRow, 0);
+        Object currentStatus = tableModel.getValueAt(selectedRow, 4);
+        if (id == null || currentStatus == null) {
+            JOptionPane.showMessageDialog(this, "That row is still loading. Please try again.");
+            return;
+        }
         if ("PAID".equals(currentStatus)) {
             JOptionPane.showMessageDialog(this, "This fine is already paid.");
             return;
         }
 
-        int fineId = (int) tableModel.getValueAt(selectedRow, 0);
+        int fineId = ((Number) id).intValue();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "UPDATE fines SET status = 'PAID', paid_date = CURRENT_DATE WHERE fine_id = ?")) {
-            
-            pstmt.setInt(1, fineId);
-            pstmt.executeUpdate();
+        BackgroundTasks.run(this, () -> fineService.payFine(fineId), result -> {
+            if (!result.startsWith("SUCCESS")) {
+                JOptionPane.showMessageDialog(this, result);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Fine marked as PAID!");
             loadFines();
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error processing payment: " + e.getMessage());
-        }
+        }, e -> JOptionPane.showMessageDialog(this, "Error processing payment: " + e.getMessage()));
     }
 
     static class StatusRenderer extends DefaultTableCellRenderer {
@@ -1,18 +1,15 @@
 package librarysystem;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.sql.*;
-import java.util.Vector;
 
 public class ManageUsersUI extends JFrame {
 
     private JTextField nameField, emailField, passwordField;
     private JComboBox<String> roleCombo;
     private JTable usersTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel tableModel;
+    private final MemberService memberService = new MemberService();
 
     public ManageUsersUI() {
         setTitle("Manage Users");
@@ -50,10 +47,18 @@ public class ManageUsersUI extends JFrame {
         add(inputPanel, BorderLayout.NORTH);
 
         String[] columns = {"ID", "Name", "Email", "Role", "Active"};
-        tableModel = new DefaultTableModel(columns, 0);
+        tableModel = new LazyTableModel(columns, memberService.getMembersRowSource());
         usersTable = new JTable(tableModel);
+        tableModel.installHeaderSorting(usersTable);
         add(new JScrollPane(usersTable), BorderLayout.CENTER);
 
+        JTextField filterField = new JTextField(25);
+        filterField.addActionListener(e -> tableModel.setFilter(filterField.getText()));
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Filter (Name or Email):"));
+        filterPanel.add(filterField);
+        add(filterPanel, BorderLayout.SOUTH);
+
         loadUsersData();
 
         addBtn.addActionListener(e -> addUser());
@@ -61,46 +66,27 @@ public class ManageUsersUI extends JFrame {
     }
 
     private void loadUsersData() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM members")) {
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("member_id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getString("email"));
-                row.add(rs.getString("role"));
-                row.add(rs.getBoolean("is_active"));
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading users: " + e.getMessage());
-        }
+        tableModel.refresh();
     }
 
     private void addUser() {
-        String sql = "INSERT INTO members (name, email, password_hash, role, is_active) VALUES (?, ?, ?, ?, true)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, nameField.getText());
-            pstmt.setString(2, emailField.getText());
-            pstmt.setString(3, passwordField.getText()); 
-            pstmt.setString(4, roleCombo.getSelectedItem().toString());
-            
-            pstmt.executeUpdate();
+        String name = nameField.getText();
+        String email = emailField.getText();
+        String password = passwordField.getText();
+        String role = roleCombo.getSelectedItem().toString();
+
+        BackgroundTasks.run(this, () -> memberService.addMember(name, email, password, role), result -> {
+            if (!result.startsWith("SUCCESS")) {
+                JOptionPane.showMessageDialog(this, "Error adding user: " + result);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "User Added Successfully!");
             
             nameField.setText("");
             emailField.setText("");
             passwordField.setText("");
             loadUsersData();
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error adding user: " + e.getMessage());
-        }
+        }, e -> JOptionPane.showMessageDialog(this, "Error adding user: " + e.getMessage()));
     }
 
     private void deleteUser() {
@@ -110,18 +96,20 @@ public class ManageUsersUI extends JFrame {
             return;
         }
 
-        int memberId = (int) tableModel.getValueAt(selectedRow, 0);
+        Object id = tableModel.getValueAt(selectedRow, 0);
+        if (id == null) {
+            JOptionPane.showMessageDialog(this, "That row is still loading. Please try again.");
+            return;
+        }
+        int memberId = ((Number) id).intValue();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("DELETE FROM members WHERE member_id = ?")) {
-            
-            pstmt.setInt(1, memberId);
-            pstmt.executeUpdate();
+        BackgroundTasks.run(this, () -> memberService.deleteMember(memberId), result -> {
+            if (!result.startsWith("SUCCESS")) {
+                JOptionPane.showMessageDialog(this, "Error deleting user: " + result);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "User Deleted!");
             loadUsersData();
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error deleting user: " + e.getMessage());
-        }
+        }, e -> JOptionPane.showMessageDialog(this, "Error deleting user: " + e.getMessage()));
     }
 }
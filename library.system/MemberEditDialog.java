@@ -72,21 +72,32 @@ public class MemberEditDialog extends JDialog {
                 return;
             }
 
-            boolean infoOk = memberService.updateMemberBasicInfo(member.getMemberId(), newName, newEmail);
-            boolean activeOk = memberService.setMemberActive(member.getMemberId(), newActive);
-
-            if (infoOk && activeOk) {
-                JOptionPane.showMessageDialog(this,
-                        "Member updated successfully.",
-                        "Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
+            saveBtn.setEnabled(false);
+            BackgroundTasks.run(this, () -> {
+                boolean infoOk = memberService.updateMemberBasicInfo(member.getMemberId(), newName, newEmail);
+                boolean activeOk = memberService.setMemberActive(member.getMemberId(), newActive);
+                return infoOk && activeOk;
+            }, ok -> {
+                saveBtn.setEnabled(true);
+                if (ok) {
+                    JOptionPane.showMessageDialog(this,
+                            "Member updated successfully.",
+                            "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Failed to update member.",
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }, ex -> {
+                saveBtn.setEnabled(true);
                 JOptionPane.showMessageDialog(this,
-                        "Failed to update member.",
+                        "Failed to update member: " + ex.getMessage(),
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
     }
 }
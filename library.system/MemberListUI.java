@@ -11,6 +11,7 @@ public class MemberListUI extends JFrame {
     private JTable membersTable;
     private DefaultTableModel model;
     private JTextField searchField;
+    private final BackgroundTasks.Latest loadTask = new BackgroundTasks.Latest();
 
     public MemberListUI() {
 
@@ -96,18 +97,7 @@ public class MemberListUI extends JFrame {
     }
 
     private void loadAllMembers() {
-        model.setRowCount(0);
-        List<User> members = memberService.getAllMembers(); 
-
-        for (User u : members) {
-            model.addRow(new Object[]{
-                    u.getMemberId(),
-                    u.getName(),
-                    u.getEmail(),
-                    u.getRole(),
-                    u.isActive() ? "ACTIVE" : "INACTIVE"
-            });
-        }
+        loadTask.run(this, memberService::getAllMembers, this::showMembers);
     }
 
     private void searchMembers() {
@@ -117,14 +107,17 @@ public class MemberListUI extends JFrame {
             return;
         }
 
-        model.setRowCount(0);
-        List<User> members = memberService.searchMembers(keyword); 
-
-        if (members.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No members found matching your search.",
-                    "Search Result", JOptionPane.INFORMATION_MESSAGE);
-        }
+        loadTask.run(this, () -> memberService.searchMembers(keyword), members -> {
+            showMembers(members);
+            if (members.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No members found matching your search.",
+                        "Search Result", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
 
+    private void showMembers(List<User> members) {
+        model.setRowCount(0);
         for (User u : members) {
             model.addRow(new Object[]{
                     u.getMemberId(),
@@ -160,20 +153,20 @@ public class MemberListUI extends JFrame {
             return;
         }
 
-        boolean ok = memberService.setMemberActive(memberId, active); 
-
-        if (ok) {
-            JOptionPane.showMessageDialog(this,
-                    "Member " + memberName + " has been " + (active ? "activated" : "deactivated") + ".",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-            loadAllMembers(); 
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Failed to update member status.",
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        BackgroundTasks.run(this, () -> memberService.setMemberActive(memberId, active), ok -> {
+            if (ok) {
+                JOptionPane.showMessageDialog(this,
+                        "Member " + memberName + " has been " + (active ? "activated" : "deactivated") + ".",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                loadAllMembers();
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Failed to update member status.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
     private void openEditDialog() {
     int selected = membersTable.getSelectedRow();
@@ -188,19 +181,20 @@ public class MemberListUI extends JFrame {
     int modelRow = membersTable.convertRowIndexToModel(selected);
     int memberId = (int) model.getValueAt(modelRow, 0);
 
-    User member = memberService.getMemberById(memberId);
-    if (member == null) {
-        JOptionPane.showMessageDialog(this,
-                "Failed to load member details.",
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        return;
-    }
+    BackgroundTasks.run(this, () -> memberService.getMemberById(memberId), member -> {
+        if (member == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Failed to load member details.",
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-    MemberEditDialog dialog = new MemberEditDialog(this, member);
-    dialog.setVisible(true);
+        MemberEditDialog dialog = new MemberEditDialog(this, member);
+        dialog.setVisible(true);
 
-    loadAllMembers();
+        loadAllMembers();
+    });
 }
 }
 
@@ -9,6 +9,7 @@ public class MemberRegistrationUI extends JFrame {
     private JTextField emailField;
     private JPasswordField passwordField;
     private JPasswordField confirmField;
+    private JButton registerBtn;
 
     public MemberRegistrationUI() {
         SessionManager session = SessionManager.getInstance();
@@ -57,7 +58,7 @@ public class MemberRegistrationUI extends JFrame {
 
         add(formPanel, BorderLayout.CENTER);
 
-        JButton registerBtn = new JButton("Register Member");
+        registerBtn = new JButton("Register Member");
         registerBtn.addActionListener(e -> handleRegister());
 
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -84,25 +85,33 @@ public class MemberRegistrationUI extends JFrame {
             return;
         }
 
-        boolean ok = AuthService.registerUser(name, email, password, "MEMBER");
-
-        if (ok) {
+        registerBtn.setEnabled(false);
+        BackgroundTasks.run(this, () -> AuthService.registerUser(name, email, password, "MEMBER"), ok -> {
+            registerBtn.setEnabled(true);
+            if (ok) {
+                JOptionPane.showMessageDialog(this,
+                        "Member registered successfully.",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+
+                // نفضي الحقول
+                nameField.setText("");
+                emailField.setText("");
+                passwordField.setText("");
+                confirmField.setText("");
+
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Registration failed. Check console for details.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        }, ex -> {
+            registerBtn.setEnabled(true);
             JOptionPane.showMessageDialog(this,
-                    "Member registered successfully.",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-            // نفضي الحقول
-            nameField.setText("");
-            emailField.setText("");
-            passwordField.setText("");
-            confirmField.setText("");
-
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Registration failed. Check console for details.",
+                    "Registration failed: " + ex.getMessage(),
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 }
@@ -11,6 +11,7 @@ public class MemberSearchUI extends JFrame {
     private JTextField searchField;
     private JTable resultsTable;
     private DefaultTableModel model;
+    private final BackgroundTasks.Latest searchTask = new BackgroundTasks.Latest();
 
     public MemberSearchUI() {
 
@@ -70,6 +71,7 @@ public class MemberSearchUI extends JFrame {
 
         searchBtn.addActionListener(e -> doSearch());
         clearBtn.addActionListener(e -> {
+            searchTask.cancel();
             searchField.setText("");
             model.setRowCount(0);
         });
@@ -87,8 +89,11 @@ public class MemberSearchUI extends JFrame {
             return;
         }
 
-        List<User> members = memberService.searchMembers(keyword);
+        searchTask.run(this, () -> memberService.searchMembers(keyword), this::showResults);
+    }
 
+    private void showResults(List<User> members) {
+        model.setRowCount(0);
         if (members.isEmpty()) {
             JOptionPane.showMessageDialog(this,
                     "No members found.",
@@ -126,4 +126,69 @@ public class MemberService {
             return false;
         }
     }
+
+    // Members ordered by name, for pick lists
+    public List<User> getMembersByName() {
+        List<User> members = new ArrayList<>();
+        String sql = "SELECT member_id, name, email, role, is_active FROM members ORDER BY name, member_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                members.add(new User(rs.getInt("member_id"), rs.getString("name"), rs.getString("email"),
+                        rs.getString("role"), rs.getBoolean("is_active")));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading members: " + e.getMessage());
+        }
+
+        return members;
+    }
+
+    public String addMember(String name, String email, String password, String role) {
+        String sql = "INSERT INTO members (name, email, password_hash, role, is_active) VALUES (?, ?, ?, ?, true)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, name);
+            stmt.setString(2, email);
+            stmt.setString(3, PasswordUtils.hashPassword(password));
+            stmt.setString(4, role);
+            stmt.executeUpdate();
+            return "SUCCESS: User added.";
+
+        } catch (SQLException e) {
+            System.err.println("Error adding member: " + e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    public String deleteMember(int memberId) {
+        String sql = "DELETE FROM members WHERE member_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, memberId);
+            return stmt.executeUpdate() > 0 ? "SUCCESS: User deleted." : "FAIL: User not found.";
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting member: " + e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    // Rows for the librarian's member list, loaded lazily by LazyTableModel
+    public LazyTableModel.RowSource getMembersRowSource() {
+        return new SqlRowSource(
+                "member_id, name, email, role, is_active",
+                "members",
+                new String[]{"member_id", "name", "email", "role", "is_active"},
+                new String[]{"name", "email"},
+                "member_id");
+    }
 }
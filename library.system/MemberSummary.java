@@ -0,0 +1,151 @@
+package librarysystem;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Collection;
+
+// Running per-member totals (unpaid fines, active loans, READY holds) in member_summary.
+// Every code path that changes one of them adjusts the row in its own transaction, so
+// checkout can enforce borrowing limits by reading one row instead of aggregating.
+public class MemberSummary {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private int memberId;
+    private BigDecimal unpaidFines;
+    private int activeLoans;
+    private int readyHolds;
+
+    public MemberSummary(int memberId, BigDecimal unpaidFines, int activeLoans, int readyHolds) {
+        this.memberId = memberId;
+        this.unpaidFines = unpaidFines;
+        this.activeLoans = activeLoans;
+        this.readyHolds = readyHolds;
+    }
+
+    public int getMemberId() { return memberId; }
+    public BigDecimal getUnpaidFines() { return unpaidFines; }
+    public int getActiveLoans() { return activeLoans; }
+    public int getReadyHolds() { return readyHolds; }
+
+    public static MemberSummary get(int memberId) {
+        String sql = "SELECT unpaid_fines, active_loans, ready_holds FROM member_summary WHERE member_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new MemberSummary(memberId, rs.getBigDecimal(1), rs.getInt(2), rs.getInt(3));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading member summary: " + e.getMessage());
+            return null;
+        }
+        return new MemberSummary(memberId, BigDecimal.ZERO, 0, 0);
+    }
+
+    // Adds the deltas inside the caller's transaction; creates the row on first use
+    static void adjust(Connection conn, int memberId, BigDecimal fineDelta, int loanDelta, int readyHoldDelta)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(upsertSql())) {
+            bindAdjust(ps, memberId, fineDelta, loanDelta, readyHoldDelta);
+            ps.executeUpdate();
+        }
+    }
+
+    // Same deltas for several members in one batch
+    static void adjust(Connection conn, Collection<Integer> memberIds, int loanDelta, int readyHoldDelta)
+            throws SQLException {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(upsertSql())) {
+            for (int memberId : memberIds) {
+                bindAdjust(ps, memberId, BigDecimal.ZERO, loanDelta, readyHoldDelta);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static String upsertSql() {
+        return "INSERT INTO member_summary (member_id, unpaid_fines, active_loans, ready_holds) VALUES (?, ?, ?, ?) " +
+               "ON DUPLICATE KEY UPDATE unpaid_fines = unpaid_fines + VALUES(unpaid_fines), " +
+               "active_loans = active_loans + VALUES(active_loans), " +
+               "ready_holds = ready_holds + VALUES(ready_holds)";
+    }
+
+    private static void bindAdjust(PreparedStatement ps, int memberId, BigDecimal fineDelta,
+                                   int loanDelta, int readyHoldDelta) throws SQLException {
+        ps.setInt(1, memberId);
+        ps.setBigDecimal(2, fineDelta);
+        ps.setInt(3, loanDelta);
+        ps.setInt(4, readyHoldDelta);
+    }
+
+    // Recomputes the unpaid total of a few members from fines, for bulk writers such as
+    // FineAccrualEngine that upsert amounts without knowing the previous value
+    static void refreshFines(Connection conn, Collection<Integer> memberIds) throws SQLException {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO member_summary (member_id, unpaid_fines) " +
+                     "SELECT ?, COALESCE(SUM(amount), 0) FROM fines WHERE member_id = ? AND status = 'UNPAID' " +
+                     "ON DUPLICATE KEY UPDATE unpaid_fines = VALUES(unpaid_fines)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int memberId : memberIds) {
+                ps.setInt(1, memberId);
+                ps.setInt(2, memberId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // Full recompute from fines, loans and holds; used after setup or bulk imports. Works
+    // in member_id ranges so a large member table is never locked as a whole.
+    public static int rebuild() {
+        String sql = "INSERT INTO member_summary (member_id, unpaid_fines, active_loans, ready_holds) " +
+                     "SELECT m.member_id, " +
+                     "(SELECT COALESCE(SUM(f.amount), 0) FROM fines f WHERE f.member_id = m.member_id AND f.status = 'UNPAID'), " +
+                     "(SELECT COUNT(*) FROM loans l WHERE l.member_id = m.member_id AND l.return_date IS NULL), " +
+                     "(SELECT COUNT(*) FROM holds h WHERE h.member_id = m.member_id AND h.status = 'READY') " +
+                     "FROM members m WHERE m.member_id BETWEEN ? AND ? " +
+                     "ON DUPLICATE KEY UPDATE unpaid_fines = VALUES(unpaid_fines), " +
+                     "active_loans = VALUES(active_loans), ready_holds = VALUES(ready_holds)";
+        int rows = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int minId;
+            int maxId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(member_id), MAX(member_id) FROM members")) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return 0;
+                }
+                minId = rs.getInt(1);
+                maxId = rs.getInt(2);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int from = minId; from <= maxId; from += REBUILD_BATCH_SIZE) {
+                    ps.setInt(1, from);
+                    ps.setInt(2, from + REBUILD_BATCH_SIZE - 1);
+                    rows += ps.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding member summaries: " + e.getMessage());
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberSummary{" +
+                "memberId=" + memberId +
+                ", unpaidFines=" + unpaidFines +
+                ", activeLoans=" + activeLoans +
+                ", readyHolds=" + readyHolds +
+                '}';
+    }
+}
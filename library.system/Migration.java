@@ -0,0 +1,172 @@
+package librarysystem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// One numbered schema change for MigrationRunner. A migration is a list of steps; every
+// step is written so it can be re-run after a partial failure (MySQL commits each DDL
+// statement on its own, so a migration is never atomic as a whole).
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final List<Step> steps = new ArrayList<>();
+
+    public Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    public int getVersion() { return version; }
+    public String getDescription() { return description; }
+    public List<Step> getSteps() { return steps; }
+
+    // Runs a statement as is; use IF NOT EXISTS forms so it is re-runnable
+    public Migration sql(String statement) {
+        steps.add(new Step(statement) {
+            @Override
+            void run(Connection conn) throws SQLException {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(statement);
+                }
+            }
+        });
+        return this;
+    }
+
+    // Builds the index in place without blocking reads or writes; skipped if it exists
+    public Migration createIndex(String table, String name, String columns) {
+        return createIndex(table, name, columns, false);
+    }
+
+    public Migration createUniqueIndex(String table, String name, String columns) {
+        return createIndex(table, name, columns, true);
+    }
+
+    private Migration createIndex(String table, String name, String columns, boolean unique) {
+        DatabaseBackend backend = DatabaseConnection.backend();
+        String ddl = backend.createIndexSql(table, name, columns, unique);
+        steps.add(new Step(ddl) {
+            @Override
+            void run(Connection conn) throws SQLException {
+                if (!exists(conn, backend.indexExistsSql(), table, name)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(ddl);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    // Adds a column in place without blocking reads or writes; skipped if it exists
+    public Migration addColumn(String table, String column, String definition) {
+        DatabaseBackend backend = DatabaseConnection.backend();
+        String ddl = backend.addColumnSql(table, column, definition);
+        steps.add(new Step(ddl) {
+            @Override
+            void run(Connection conn) throws SQLException {
+                if (!exists(conn, backend.columnExistsSql(), table, column)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(ddl);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    // Adds a named foreign key; skipped if a constraint with that name exists
+    public Migration addForeignKey(String table, String name, String column, String refTable, String refColumn) {
+        DatabaseBackend backend = DatabaseConnection.backend();
+        String ddl = "ALTER TABLE " + table + " ADD CONSTRAINT " + name +
+                     " FOREIGN KEY (" + column + ") REFERENCES " + refTable + "(" + refColumn + ")";
+        steps.add(new Step(ddl) {
+            @Override
+            void run(Connection conn) throws SQLException {
+                if (!exists(conn, backend.constraintExistsSql(), table, name)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(ddl);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    // Runs a data change over a large table in primary key ranges of batchSize, each in its
+    // own short autocommit statement, so rows are only locked one range at a time. The
+    // statement takes the range bounds as two parameters, e.g. "... WHERE id BETWEEN ? AND ?".
+    public Migration backfill(String table, String keyColumn, int batchSize, String statement) {
+        steps.add(new Step("BACKFILL " + table + " BY " + keyColumn + " IN " + batchSize + ": " + statement) {
+            @Override
+            void run(Connection conn) throws SQLException {
+                long min;
+                long max;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + table)) {
+                    if (!rs.next() || rs.getObject(1) == null) {
+                        return;
+                    }
+                    min = rs.getLong(1);
+                    max = rs.getLong(2);
+                }
+                conn.setAutoCommit(true);
+                try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                    for (long lo = min; lo <= max; lo += batchSize) {
+                        ps.setLong(1, lo);
+                        ps.setLong(2, lo + batchSize - 1);
+                        ps.executeUpdate();
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    // SHA-256 over the version, description and the text of every step; any edit to an
+    // applied migration changes it
+    public String checksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((version + "\n" + description + "\n").getBytes(StandardCharsets.UTF_8));
+            for (Step step : steps) {
+                digest.update(step.getText().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean exists(Connection conn, String sql, String table, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    public abstract static class Step {
+        private final String text;
+
+        Step(String text) {
+            this.text = text;
+        }
+
+        public String getText() { return text; }
+
+        abstract void run(Connection conn) throws SQLException;
+    }
+}
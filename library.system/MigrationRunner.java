@@ -0,0 +1,343 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Brings the database schema up to date by applying numbered migrations in order and
+// recording each one in schema_version with its checksum. Applied migrations must never
+// be edited: a checksum mismatch stops startup. Add a new migration at the end instead.
+//
+//   java librarysystem.MigrationRunner             apply pending migrations
+//   java librarysystem.MigrationRunner --dry-run   list what would run, change nothing
+//   java librarysystem.MigrationRunner --status    show applied and pending versions
+public class MigrationRunner {
+
+    private static final String LOCK_NAME = "library_db.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // {table, index, columns}, matched to the hot queries of BorrowingService,
+    // ReservationService, BookService and the librarian screens
+    static final String[][] INDEX_PACK = {
+        // claim an available copy of a book: book_id = ? AND status = ? ORDER BY copy_id
+        {"copies", "idx_copies_book_status", "book_id, status, copy_id"},
+        // a member's active loans (duplicate check, returns, limits): member_id = ? AND return_date IS NULL
+        {"loans", "idx_loans_member_open", "member_id, return_date, copy_id"},
+        // active loan of a copy: copy_id = ? AND return_date IS NULL
+        {"loans", "idx_loans_copy_open", "copy_id, return_date"},
+        // loan list, newest first
+        {"loans", "idx_loans_checkout", "checkout_date, loan_id"},
+        // hold queue of a book: book_id = ? AND status = 'PENDING' ORDER BY place_date, hold_id
+        {"holds", "idx_holds_queue", "book_id, status, place_date, hold_id"},
+        // a member's READY / PENDING holds
+        {"holds", "idx_holds_member", "member_id, status, book_id"},
+        // unpaid fine total of a member, covered: member_id = ? AND status = 'UNPAID'
+        {"fines", "idx_fines_member_status", "member_id, status, amount"},
+        // fine list sorted by status
+        {"fines", "idx_fines_status", "status, fine_id"},
+        // member pickers and lists sorted by name
+        {"members", "idx_members_name", "name, member_id"}
+    };
+
+    static List<Migration> migrations() {
+        List<Migration> list = new ArrayList<>();
+
+        // The schema as it was before migrations existed. Databases created by the old
+        // DatabaseSetup already have exactly these tables, so V1 changes nothing there and
+        // every later change below is applied to them too.
+        list.add(new Migration(1, "Baseline schema")
+            .sql("CREATE TABLE IF NOT EXISTS members (" +
+                 "member_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "name VARCHAR(100) NOT NULL," +
+                 "email VARCHAR(100) UNIQUE NOT NULL," +
+                 "password_hash VARCHAR(255) NOT NULL," +
+                 "role ENUM('LIBRARIAN', 'MEMBER') NOT NULL," +
+                 "registration_date DATE DEFAULT (CURRENT_DATE)," +
+                 "is_active BOOLEAN DEFAULT TRUE)")
+            .sql("CREATE TABLE IF NOT EXISTS books (" +
+                 "book_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "isbn VARCHAR(20) UNIQUE NOT NULL," +
+                 "title VARCHAR(200) NOT NULL," +
+                 "author VARCHAR(100) NOT NULL," +
+                 "category VARCHAR(50)," +
+                 "publication_year INT," +
+                 "description TEXT)")
+            .sql("CREATE TABLE IF NOT EXISTS copies (" +
+                 "copy_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "book_id INT NOT NULL," +
+                 "status ENUM('AVAILABLE', 'CHECKED_OUT', 'MAINTENANCE') DEFAULT 'AVAILABLE'," +
+                 "location VARCHAR(50) DEFAULT 'Main Shelf'," +
+                 "FOREIGN KEY (book_id) REFERENCES books(book_id) ON DELETE CASCADE)")
+            .sql("CREATE TABLE IF NOT EXISTS loans (" +
+                 "loan_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "copy_id INT NOT NULL," +
+                 "member_id INT NOT NULL," +
+                 "checkout_date DATE DEFAULT (CURRENT_DATE)," +
+                 "due_date DATE NOT NULL," +
+                 "return_date DATE NULL," +
+                 "renewed_count INT DEFAULT 0," +
+                 "FOREIGN KEY (copy_id) REFERENCES copies(copy_id)," +
+                 "FOREIGN KEY (member_id) REFERENCES members(member_id))")
+            .sql("CREATE TABLE IF NOT EXISTS fines (" +
+                 "fine_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "member_id INT NOT NULL," +
+                 "loan_id INT NULL," +
+                 "amount DECIMAL(8,2) NOT NULL," +
+                 "reason VARCHAR(100) NOT NULL," +
+                 "issue_date DATE DEFAULT (CURRENT_DATE)," +
+                 "paid_date DATE NULL," +
+                 "status ENUM('UNPAID', 'PAID', 'WAIVED') DEFAULT 'UNPAID'," +
+                 "FOREIGN KEY (member_id) REFERENCES members(member_id)," +
+                 "FOREIGN KEY (loan_id) REFERENCES loans(loan_id))")
+            .sql("CREATE TABLE IF NOT EXISTS holds (" +
+                 "hold_id INT PRIMARY KEY AUTO_INCREMENT," +
+                 "book_id INT NOT NULL," +
+                 "member_id INT NOT NULL," +
+                 "place_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
+                 "status ENUM('PENDING', 'READY', 'CANCELLED') DEFAULT 'PENDING'," +
+                 "notification_sent BOOLEAN DEFAULT FALSE," +
+                 "FOREIGN KEY (book_id) REFERENCES books(book_id)," +
+                 "FOREIGN KEY (member_id) REFERENCES members(member_id))"));
+
+        // Counters start from the copies that already exist
+        list.add(new Migration(2, "Book availability counters")
+            .addColumn("books", "total_copies", "INT NOT NULL DEFAULT 0")
+            .addColumn("books", "available_copies", "INT NOT NULL DEFAULT 0")
+            .backfill("books", "book_id", 1000,
+                 "UPDATE books b SET " +
+                 "total_copies = (SELECT COUNT(*) FROM copies c WHERE c.book_id = b.book_id), " +
+                 "available_copies = (SELECT COUNT(*) FROM copies c WHERE c.book_id = b.book_id AND c.status = 'AVAILABLE') " +
+                 "WHERE b.book_id BETWEEN ? AND ?"));
+
+        list.add(new Migration(3, "Catalog title index")
+            .createIndex("books", "idx_books_title", "title, book_id"));
+
+        // New ENUM values go at the end of the list, so the column is not rebuilt. Holds that
+        // were already READY have no ready_date; they get their place_date so the expiry
+        // sweeper picks them up instead of leaving them at the head of the queue for good.
+        list.add(new Migration(4, "Hold promotion and expiry")
+            .sql("ALTER TABLE copies MODIFY COLUMN status " +
+                 "ENUM('AVAILABLE', 'CHECKED_OUT', 'MAINTENANCE', 'READY_FOR_HOLD') DEFAULT 'AVAILABLE'")
+            .sql("ALTER TABLE holds MODIFY COLUMN status " +
+                 "ENUM('PENDING', 'READY', 'CANCELLED', 'FULFILLED', 'EXPIRED') DEFAULT 'PENDING'")
+            .addColumn("holds", "copy_id", "INT NULL")
+            .addColumn("holds", "ready_date", "DATETIME NULL")
+            .addForeignKey("holds", "fk_holds_copy", "copy_id", "copies", "copy_id")
+            .backfill("holds", "hold_id", 1000,
+                 "UPDATE holds SET ready_date = COALESCE(place_date, CURRENT_TIMESTAMP) " +
+                 "WHERE status = 'READY' AND ready_date IS NULL AND hold_id BETWEEN ? AND ?")
+            .createIndex("holds", "idx_holds_ready", "status, ready_date"));
+
+        list.add(new Migration(5, "Notification outbox")
+            .sql("CREATE TABLE IF NOT EXISTS notification_outbox (" +
+                 "outbox_id BIGINT PRIMARY KEY AUTO_INCREMENT," +
+                 "hold_id INT NULL," +
+                 "member_id INT NOT NULL," +
+                 "event_type VARCHAR(30) NOT NULL," +
+                 "status ENUM('PENDING', 'SENT', 'FAILED') DEFAULT 'PENDING'," +
+                 "attempts INT NOT NULL DEFAULT 0," +
+                 "last_error VARCHAR(255) NULL," +
+                 "next_attempt_at DATETIME DEFAULT CURRENT_TIMESTAMP," +
+                 "created_at DATETIME DEFAULT CURRENT_TIMESTAMP," +
+                 "sent_at DATETIME NULL," +
+                 "INDEX idx_outbox_due (status, next_attempt_at, outbox_id))"));
+
+        list.add(new Migration(6, "Overdue fine accrual")
+            .addColumn("loans", "updated_at", "TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP")
+            .createIndex("loans", "idx_loans_updated", "updated_at")
+            .createIndex("loans", "idx_loans_open", "return_date, due_date")
+            .createUniqueIndex("fines", "uk_fines_loan_reason", "loan_id, reason")
+            .sql("CREATE TABLE IF NOT EXISTS job_checkpoints (" +
+                 "job_name VARCHAR(50) PRIMARY KEY," +
+                 "last_change_at TIMESTAMP NULL," +
+                 "last_accrual_date DATE NULL)"));
+
+        list.add(new Migration(7, "Member borrowing summary")
+            .sql("CREATE TABLE IF NOT EXISTS member_summary (" +
+                 "member_id INT PRIMARY KEY," +
+                 "unpaid_fines DECIMAL(10,2) NOT NULL DEFAULT 0," +
+                 "active_loans INT NOT NULL DEFAULT 0," +
+                 "ready_holds INT NOT NULL DEFAULT 0," +
+                 "FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE)"));
+
+        Migration indexPack = new Migration(8, "Index pack for hot query predicates");
+        for (String[] index : INDEX_PACK) {
+            indexPack.createIndex(index[0], index[1], index[2]);
+        }
+        list.add(indexPack);
+
+        // Existing members get a summary row, one id range at a time
+        list.add(new Migration(9, "Backfill member_summary")
+            .backfill("members", "member_id", 1000,
+                 "INSERT INTO member_summary (member_id, unpaid_fines, active_loans, ready_holds) " +
+                 "SELECT m.member_id, " +
+                 "(SELECT COALESCE(SUM(f.amount), 0) FROM fines f WHERE f.member_id = m.member_id AND f.status = 'UNPAID'), " +
+                 "(SELECT COUNT(*) FROM loans l WHERE l.member_id = m.member_id AND l.return_date IS NULL), " +
+                 "(SELECT COUNT(*) FROM holds h WHERE h.member_id = m.member_id AND h.status = 'READY') " +
+                 "FROM members m WHERE m.member_id BETWEEN ? AND ? " +
+                 "ON DUPLICATE KEY UPDATE member_id = member_summary.member_id"));
+
+        return list;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            if (args.length > 0 && "--status".equals(args[0])) {
+                printStatus();
+            } else {
+                migrate(args.length > 0 && "--dry-run".equals(args[0]));
+            }
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+
+    public static int currentVersion() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            ensureVersionTable(conn);
+            int version = 0;
+            for (int v : loadApplied(conn).keySet()) {
+                version = Math.max(version, v);
+            }
+            return version;
+        }
+    }
+
+    // Applies every pending migration and returns how many ran. With dryRun nothing is
+    // changed; the steps that would run are printed instead.
+    public static int migrate(boolean dryRun) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            acquireLock(conn);
+            try {
+                ensureVersionTable(conn);
+                Map<Integer, String> applied = loadApplied(conn);
+                verifyChecksums(conn, applied, dryRun);
+
+                int count = 0;
+                for (Migration m : migrations()) {
+                    if (applied.containsKey(m.getVersion())) {
+                        continue;
+                    }
+                    if (dryRun) {
+                        System.out.println("Would apply V" + m.getVersion() + " " + m.getDescription() + ":");
+                        for (Migration.Step step : m.getSteps()) {
+                            System.out.println("    " + step.getText());
+                        }
+                    } else {
+                        apply(conn, m);
+                    }
+                    count++;
+                }
+                System.out.println(count == 0 ? "Schema is up to date"
+                        : (dryRun ? count + " migration(s) pending" : count + " migration(s) applied"));
+                return count;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        long start = System.currentTimeMillis();
+        System.out.println("Applying V" + m.getVersion() + " " + m.getDescription() + "...");
+        for (Migration.Step step : m.getSteps()) {
+            step.run(conn);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, m.getVersion());
+            ps.setString(2, m.getDescription());
+            ps.setString(3, m.checksum());
+            ps.setLong(4, elapsed);
+            ps.executeUpdate();
+        }
+        System.out.println("✓ V" + m.getVersion() + " applied in " + elapsed + " ms");
+    }
+
+    private static void verifyChecksums(Connection conn, Map<Integer, String> applied, boolean dryRun)
+            throws SQLException {
+        for (Migration m : migrations()) {
+            if (!applied.containsKey(m.getVersion())) {
+                continue;
+            }
+            String recorded = applied.get(m.getVersion());
+            if (recorded == null) {
+                // Recorded before checksums were kept; adopt the current definition
+                if (!dryRun) {
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "UPDATE schema_version SET checksum = ? WHERE version = ?")) {
+                        ps.setString(1, m.checksum());
+                        ps.setInt(2, m.getVersion());
+                        ps.executeUpdate();
+                    }
+                }
+            } else if (!recorded.equals(m.checksum())) {
+                throw new IllegalStateException("Migration V" + m.getVersion() +
+                        " was changed after it was applied (checksum " + recorded + " in schema_version, " +
+                        m.checksum() + " in code)");
+            }
+        }
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        Migration bootstrap = new Migration(0, "schema_version")
+            .sql("CREATE TABLE IF NOT EXISTS schema_version (" +
+                 "version INT PRIMARY KEY," +
+                 "description VARCHAR(200) NOT NULL," +
+                 "checksum CHAR(64) NULL," +
+                 "applied_at DATETIME DEFAULT CURRENT_TIMESTAMP," +
+                 "execution_ms BIGINT NULL)")
+            .addColumn("schema_version", "checksum", "CHAR(64) NULL")
+            .addColumn("schema_version", "execution_ms", "BIGINT NULL");
+        for (Migration.Step step : bootstrap.getSteps()) {
+            step.run(conn);
+        }
+    }
+
+    private static Map<Integer, String> loadApplied(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    public static void printStatus() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            ensureVersionTable(conn);
+            Map<Integer, String> applied = loadApplied(conn);
+            for (Migration m : migrations()) {
+                String state;
+                if (!applied.containsKey(m.getVersion())) {
+                    state = "pending";
+                } else if (applied.get(m.getVersion()) != null && !applied.get(m.getVersion()).equals(m.checksum())) {
+                    state = "CHECKSUM MISMATCH";
+                } else {
+                    state = "applied";
+                }
+                System.out.printf("  V%-3d %-40s %s%n", m.getVersion(), m.getDescription(), state);
+            }
+        }
+    }
+
+    // Only one instance migrates at a time; the others wait and then find nothing to do
+    private static void acquireLock(Connection conn) throws SQLException {
+        if (!DatabaseConnection.backend().acquireLock(conn, LOCK_NAME, LOCK_TIMEOUT_SECONDS)) {
+            throw new SQLException("Timed out waiting for the schema migration lock");
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try {
+            DatabaseConnection.backend().releaseLock(conn, LOCK_NAME);
+        } catch (SQLException e) {
+            System.err.println("Could not release schema migration lock: " + e.getMessage());
+        }
+    }
+}
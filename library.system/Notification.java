@@ -0,0 +1,60 @@
+package librarysystem;
+
+import java.sql.Timestamp;
+
+// One message taken from notification_outbox, with the member and book details a sink needs
+public class Notification {
+    private long outboxId;
+    private String eventType; // HOLD_READY, HOLD_EXPIRED
+    private int holdId;
+    private int memberId;
+    private String memberName;
+    private String email;
+    private String bookTitle;
+    private int attempts;
+    private Timestamp createdAt;
+
+    public Notification(long outboxId, String eventType, int holdId, int memberId,
+                        String memberName, String email, String bookTitle,
+                        int attempts, Timestamp createdAt) {
+        this.outboxId = outboxId;
+        this.eventType = eventType;
+        this.holdId = holdId;
+        this.memberId = memberId;
+        this.memberName = memberName;
+        this.email = email;
+        this.bookTitle = bookTitle;
+        this.attempts = attempts;
+        this.createdAt = createdAt;
+    }
+
+    public long getOutboxId() { return outboxId; }
+    public String getEventType() { return eventType; }
+    public int getHoldId() { return holdId; }
+    public int getMemberId() { return memberId; }
+    public String getMemberName() { return memberName; }
+    public String getEmail() { return email; }
+    public String getBookTitle() { return bookTitle; }
+    public int getAttempts() { return attempts; }
+    public Timestamp getCreatedAt() { return createdAt; }
+
+    public String getMessage() {
+        if ("HOLD_EXPIRED".equals(eventType)) {
+            return "Dear " + memberName + ", your hold on \"" + bookTitle +
+                   "\" has expired because it was not collected in time.";
+        }
+        return "Dear " + memberName + ", \"" + bookTitle +
+               "\" is waiting for you at the front desk.";
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "outboxId=" + outboxId +
+                ", eventType='" + eventType + '\'' +
+                ", holdId=" + holdId +
+                ", memberId=" + memberId +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,265 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains notification_outbox. Rows are written in the same transaction that changes the
+// hold, so a promotion is never lost or announced without having happened; sending runs
+// here on its own thread, so a slow or broken mail gateway never holds up the desk.
+public class NotificationDispatcher {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+    // A claimed row becomes due again after this long, in case the dispatcher dies mid-batch
+    private static final int LEASE_SECONDS = 300;
+
+    private static ScheduledExecutorService scheduler;
+    private static volatile Notifier notifier;
+    private static final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+
+    private static final AtomicLong sentTotal = new AtomicLong();
+    private static final AtomicLong retriedTotal = new AtomicLong();
+    private static final AtomicLong failedTotal = new AtomicLong();
+
+    public static synchronized void start(long periodSeconds, Notifier target) {
+        if (scheduler != null) {
+            return;
+        }
+        notifier = target;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(NotificationDispatcher::drain, 5, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // Called after a commit that queued a message, so members hear about it without waiting
+    // for the next poll. Never blocks; repeated calls before the drain runs collapse into one.
+    public static synchronized void wakeUp() {
+        if (scheduler != null && wakeUpQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeUpQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    // Queues a message inside the caller's transaction
+    static void enqueue(Connection conn, String eventType, int holdId, int memberId) throws SQLException {
+        List<int[]> holds = new ArrayList<>();
+        holds.add(new int[]{holdId, memberId});
+        enqueue(conn, eventType, holds);
+    }
+
+    // Same, for several {hold_id, member_id} pairs in one batch
+    static void enqueue(Connection conn, String eventType, List<int[]> holds) throws SQLException {
+        if (holds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO notification_outbox (hold_id, member_id, event_type) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int[] h : holds) {
+                ps.setInt(1, h[0]);
+                ps.setInt(2, h[1]);
+                ps.setString(3, eventType);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    public static int drain() {
+        Notifier target = notifier;
+        if (target == null) {
+            return 0;
+        }
+        int sent = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            while (true) {
+                List<Notification> batch = claimBatch(conn);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                List<Notification> delivered = new ArrayList<>();
+                List<Notification> failed = new ArrayList<>();
+                List<String> errors = new ArrayList<>();
+                for (Notification n : batch) {
+                    try {
+                        target.send(n);
+                        delivered.add(n);
+                    } catch (Exception e) {
+                        failed.add(n);
+                        errors.add(String.valueOf(e.getMessage()));
+                    }
+                }
+                recordResults(conn, delivered, failed, errors);
+                sent += delivered.size();
+
+                if (batch.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error dispatching notifications: " + e.getMessage());
+        }
+        return sent;
+    }
+
+    // Takes the next due rows and pushes their next_attempt_at out by the lease, in a short
+    // transaction of its own. FOR UPDATE OF o only locks outbox rows, never the holds or
+    // members they refer to, so checkouts and returns are not held up.
+    private static List<Notification> claimBatch(Connection conn) throws SQLException {
+        List<Notification> batch = new ArrayList<>();
+        conn.setAutoCommit(false);
+        try {
+            String sql = "SELECT o.outbox_id, o.event_type, o.hold_id, o.member_id, o.attempts, o.created_at, " +
+                         "m.name, m.email, b.title " +
+                         "FROM notification_outbox o " +
+                         "JOIN members m ON o.member_id = m.member_id " +
+                         "LEFT JOIN holds h ON o.hold_id = h.hold_id " +
+                         "LEFT JOIN books b ON h.book_id = b.book_id " +
+                         "WHERE o.status = 'PENDING' AND o.next_attempt_at <= NOW() " +
+                         "ORDER BY o.next_attempt_at, o.outbox_id LIMIT " + BATCH_SIZE +
+                         DatabaseConnection.backend().forUpdateOf("o") + DatabaseConnection.backend().skipLocked();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    batch.add(new Notification(rs.getLong("outbox_id"), rs.getString("event_type"),
+                            rs.getInt("hold_id"), rs.getInt("member_id"), rs.getString("name"),
+                            rs.getString("email"), rs.getString("title"), rs.getInt("attempts"),
+                            rs.getTimestamp("created_at")));
+                }
+            }
+            if (!batch.isEmpty()) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE notification_outbox SET next_attempt_at = TIMESTAMPADD(SECOND, " + LEASE_SECONDS +
+                        ", NOW()) WHERE outbox_id = ?")) {
+                    for (Notification n : batch) {
+                        ps.setLong(1, n.getOutboxId());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            conn.commit();
+            return batch;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void recordResults(Connection conn, List<Notification> delivered,
+                                      List<Notification> failed, List<String> errors) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            if (!delivered.isEmpty()) {
+                try (PreparedStatement sentPs = conn.prepareStatement(
+                        "UPDATE notification_outbox SET status = 'SENT', sent_at = NOW(), attempts = attempts + 1 " +
+                        "WHERE outbox_id = ?");
+                     PreparedStatement holdPs = conn.prepareStatement(
+                        "UPDATE holds SET notification_sent = TRUE WHERE hold_id = ?")) {
+                    for (Notification n : delivered) {
+                        sentPs.setLong(1, n.getOutboxId());
+                        sentPs.addBatch();
+                        if ("HOLD_READY".equals(n.getEventType())) {
+                            holdPs.setInt(1, n.getHoldId());
+                            holdPs.addBatch();
+                        }
+                    }
+                    sentPs.executeBatch();
+                    holdPs.executeBatch();
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE notification_outbox SET status = ?, attempts = ?, last_error = ?, " +
+                        "next_attempt_at = TIMESTAMPADD(SECOND, ?, NOW()) WHERE outbox_id = ?")) {
+                    for (int i = 0; i < failed.size(); i++) {
+                        Notification n = failed.get(i);
+                        int attempts = n.getAttempts() + 1;
+                        boolean giveUp = attempts >= MAX_ATTEMPTS;
+                        String error = errors.get(i);
+                        ps.setString(1, giveUp ? "FAILED" : "PENDING");
+                        ps.setInt(2, attempts);
+                        ps.setString(3, error.length() > 255 ? error.substring(0, 255) : error);
+                        ps.setLong(4, backoffSeconds(attempts));
+                        ps.setLong(5, n.getOutboxId());
+                        ps.addBatch();
+                        if (giveUp) {
+                            failedTotal.incrementAndGet();
+                            System.err.println("Giving up on " + n + ": " + error);
+                        } else {
+                            retriedTotal.incrementAndGet();
+                        }
+                    }
+                    ps.executeBatch();
+                }
+            }
+
+            conn.commit();
+            sentTotal.addAndGet(delivered.size());
+
+        } catch (SQLException e) {
+            // The lease makes the rows due again, so at worst a message is sent twice
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Exponential backoff with jitter: 30s, 1m, 2m, ... capped at an hour
+    private static long backoffSeconds(int attempts) {
+        long delay = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << Math.min(attempts - 1, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+    }
+
+    public static Stats getStats() {
+        return new Stats(sentTotal.get(), retriedTotal.get(), failedTotal.get());
+    }
+
+    public static class Stats {
+        private final long sent;
+        private final long retried;
+        private final long failed;
+
+        Stats(long sent, long retried, long failed) {
+            this.sent = sent;
+            this.retried = retried;
+            this.failed = failed;
+        }
+
+        public long getSent() { return sent; }
+        public long getRetried() { return retried; }
+        public long getFailed() { return failed; }
+
+        @Override
+        public String toString() {
+            return String.format("sent=%d retried=%d failed=%d", sent, retried, failed);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package librarysystem;
+
+// Delivery channel used by NotificationDispatcher (email, SMS, ...). Throwing marks the
+// message for another attempt later.
+public interface Notifier {
+    void send(Notification notification) throws Exception;
+}
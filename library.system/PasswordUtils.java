@@ -1,32 +1,62 @@
 package librarysystem;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
+// Passwords are stored as "$pbkdf2-sha256$<iterations>$<salt>$<hash>" (PBKDF2-HMAC-SHA256).
+// The iteration count is the cost knob: -Dlibrary.pbkdf2Iterations=N, applied to new hashes
+// only. Hashes from before PBKDF2 (Base64 of salt + one SHA-256 round) still verify, and
+// needsRehash() tells AuthService to upgrade them at the next successful login.
 public class PasswordUtils {
+
+    private static final String PREFIX = "$pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int DEFAULT_ITERATIONS = 310_000;
+
+    private static volatile int iterations = Integer.getInteger("library.pbkdf2Iterations", DEFAULT_ITERATIONS);
+
+    // SecureRandom is thread-safe; seeding a new one per call is the expensive part
+    private static final SecureRandom random = new SecureRandom();
+
+    public static int getIterations() {
+        return iterations;
+    }
+
+    public static void setIterations(int count) {
+        if (count < 1_000) {
+            throw new IllegalArgumentException("PBKDF2 iteration count too low: " + count);
+        }
+        iterations = count;
+    }
     
     
     public static String hashPassword(String password) {
+        return hashPassword(password, iterations);
+    }
+
+    public static String hashPassword(String password, int iterationCount) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterationCount);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterationCount + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+
+    // True for legacy SHA-256 hashes and for PBKDF2 hashes made with a different cost
+    public static boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = storedHash.substring(PREFIX.length()).split("\\$");
         try {
-            SecureRandom random = new SecureRandom();
-            byte[] salt = new byte[16];
-            random.nextBytes(salt);
-            
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(salt);
-            byte[] hashedPassword = md.digest(password.getBytes());
-            
-            byte[] combined = new byte[salt.length + hashedPassword.length];
-            System.arraycopy(salt, 0, combined, 0, salt.length);
-            System.arraycopy(hashedPassword, 0, combined, salt.length, hashedPassword.length);
-            
-            return Base64.getEncoder().encodeToString(combined);
-            
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("SHA-256 not available, using simple hash");
-            return simpleHash(password);
+            return parts.length != 3 || Integer.parseInt(parts[0]) != iterations;
+        } catch (NumberFormatException e) {
+            return true;
         }
     }
     
@@ -38,7 +68,12 @@ public class PasswordUtils {
                 System.err.println("Found old BCrypt hash - password needs reset");
                 return false;
             }
+
+            if (storedHash != null && storedHash.startsWith(PREFIX)) {
+                return checkPbkdf2(password, storedHash);
+            }
             
+            // Legacy format: Base64(salt[16] + SHA-256(salt + password))
             byte[] combined = Base64.getDecoder().decode(storedHash);
             
             byte[] salt = new byte[16];
@@ -59,9 +94,27 @@ public class PasswordUtils {
         }
     }
     
-   
-    private static String simpleHash(String password) {
-        return Integer.toString(password.hashCode());
+
+    private static boolean checkPbkdf2(String password, String storedHash) {
+        String[] parts = storedHash.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        int iterationCount = Integer.parseInt(parts[0]);
+        byte[] salt = Base64.getDecoder().decode(parts[1]);
+        byte[] expected = Base64.getDecoder().decode(parts[2]);
+        return MessageDigest.isEqual(pbkdf2(password, salt, iterationCount), expected);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterationCount) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterationCount, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 not available", e);
+        } finally {
+            spec.clearPassword();
+        }
     }
     
    
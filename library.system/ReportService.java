@@ -0,0 +1,64 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReportService {
+
+    // Counts and open loans for the reports screen; null if the database cannot be read
+    public Report getCirculationReport() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            int totalBooks = count(conn, "SELECT COUNT(*) FROM books");
+            int totalMembers = count(conn, "SELECT COUNT(*) FROM members");
+            int activeLoans = count(conn, "SELECT COUNT(*) FROM loans WHERE return_date IS NULL");
+
+            List<String[]> openLoans = new ArrayList<>();
+            String query = "SELECT b.title, m.name, l.due_date " +
+                           "FROM loans l " +
+                           "JOIN copies c ON l.copy_id = c.copy_id " +
+                           "JOIN books b ON c.book_id = b.book_id " +
+                           "JOIN members m ON l.member_id = m.member_id " +
+                           "WHERE l.return_date IS NULL";
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    openLoans.add(new String[]{rs.getString("title"), rs.getString("name"), rs.getString("due_date")});
+                }
+            }
+            return new Report(totalBooks, totalMembers, activeLoans, openLoans);
+
+        } catch (SQLException e) {
+            System.err.println("Error loading report: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private int count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static class Report {
+        private final int totalBooks;
+        private final int totalMembers;
+        private final int activeLoans;
+        private final List<String[]> openLoans; // {title, member name, due date}
+
+        Report(int totalBooks, int totalMembers, int activeLoans, List<String[]> openLoans) {
+            this.totalBooks = totalBooks;
+            this.totalMembers = totalMembers;
+            this.activeLoans = activeLoans;
+            this.openLoans = openLoans;
+        }
+
+        public int getTotalBooks() { return totalBooks; }
+        public int getTotalMembers() { return totalMembers; }
+        public int getActiveLoans() { return activeLoans; }
+        public List<String[]> getOpenLoans() { return openLoans; }
+    }
+}
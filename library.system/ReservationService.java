@@ -1,5 +1,6 @@
 package librarysystem;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -10,10 +11,7 @@ public class ReservationService {
     public static String placeHold(int bookId, int memberId) {
         try (Connection conn = DatabaseConnection.getConnection()) {
 
-            String bookSql =
-                    "SELECT " +
-                    " (SELECT COUNT(*) FROM copies c WHERE c.book_id = b.book_id AND c.status='AVAILABLE') AS available_copies " +
-                    "FROM books b WHERE b.book_id = ?";
+            String bookSql = "SELECT available_copies FROM books WHERE book_id = ?";
             try (PreparedStatement ps = conn.prepareStatement(bookSql)) {
                 ps.setInt(1, bookId);
                 try (ResultSet rs = ps.executeQuery()) {
@@ -41,13 +39,17 @@ public class ReservationService {
                 }
             }
 
+            // place_date is set here (to whole seconds, like DATETIME stores it) so the
+            // queue index orders the hold exactly as the table does
+            Timestamp placeDate = new Timestamp(System.currentTimeMillis() / 1000 * 1000);
             String insertSql =
-                    "INSERT INTO holds (book_id, member_id, status, notification_sent) " +
-                    "VALUES (?, ?, 'PENDING', FALSE)";
+                    "INSERT INTO holds (book_id, member_id, place_date, status, notification_sent) " +
+                    "VALUES (?, ?, ?, 'PENDING', FALSE)";
             int newId;
             try (PreparedStatement ps = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
                 ps.setInt(1, bookId);
                 ps.setInt(2, memberId);
+                ps.setTimestamp(3, placeDate);
                 ps.executeUpdate();
 
                 try (ResultSet keys = ps.getGeneratedKeys()) {
@@ -59,6 +61,7 @@ public class ReservationService {
                 }
             }
 
+            HoldQueueIndex.getInstance().add(bookId, newId, placeDate);
             int position = getQueuePositionForHold(conn, newId);
 
             return "SUCCESS: Hold placed successfully. Your position in queue is #" + position;
@@ -69,13 +72,19 @@ public class ReservationService {
         }
     }
 
-        private static int getQueuePositionForHold(Connection conn, int holdId) throws SQLException {
+    private static int getQueuePositionForHold(Connection conn, int holdId) throws SQLException {
+        HoldQueueIndex index = HoldQueueIndex.getInstance();
+        if (index.isReady()) {
+            return index.position(holdId);
+        }
+
+        // Index still loading: fall back to counting in the database
         String sql =
                 "SELECT COUNT(*) AS position " +
                 "FROM holds h2 " +
                 "WHERE h2.book_id = (SELECT book_id FROM holds WHERE hold_id = ?) " +
                 "AND h2.status = 'PENDING' " +
-                "AND h2.place_date <= (SELECT place_date FROM holds WHERE hold_id = ?)";
+                "AND (h2.place_date, h2.hold_id) <= (SELECT place_date, hold_id FROM holds WHERE hold_id = ?)";
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, holdId);
@@ -91,59 +100,221 @@ public class ReservationService {
 
     
     public static boolean cancelHold(int holdId, int memberId) {
-        String sql = "UPDATE holds SET status='CANCELLED' " +
-                     "WHERE hold_id=? AND member_id=? AND status IN ('PENDING','READY')";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        Hold promoted = null;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            String lockSql = "SELECT book_id, status, copy_id FROM holds " +
+                             "WHERE hold_id=? AND member_id=? AND status IN ('PENDING','READY') FOR UPDATE";
+            int bookId;
+            int copyId;
+            boolean wasReady;
+            try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                ps.setInt(1, holdId);
+                ps.setInt(2, memberId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    bookId = rs.getInt("book_id");
+                    wasReady = "READY".equals(rs.getString("status"));
+                    copyId = wasReady ? rs.getInt("copy_id") : 0;
+                }
+            }
 
-            ps.setInt(1, holdId);
-            ps.setInt(2, memberId);
-            return ps.executeUpdate() > 0;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE holds SET status='CANCELLED' WHERE hold_id=?")) {
+                ps.setInt(1, holdId);
+                ps.executeUpdate();
+            }
+
+            // A cancelled READY hold gives its reserved copy to the next member in line
+            if (wasReady) {
+                MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, 0, -1);
+            }
+            if (copyId > 0) {
+                promoted = releaseCopy(conn, bookId, copyId);
+            }
+            conn.commit();
 
         } catch (SQLException ex) {
             ex.printStackTrace();
             return false;
         }
+
+        HoldQueueIndex.getInstance().remove(holdId);
+        if (promoted != null) {
+            HoldQueueIndex.getInstance().remove(promoted.getHoldId());
+            NotificationDispatcher.wakeUp();
+        }
+        return true;
     }
 
-   
+    // Hands a copy that just came back (return, cancelled or expired hold) to the next
+    // PENDING hold, reserving it as READY_FOR_HOLD; with nobody waiting it goes back on the
+    // shelf. Runs inside the caller's transaction; the caller removes the promoted hold
+    // from HoldQueueIndex once it has committed.
+    static Hold releaseCopy(Connection conn, int bookId, int copyId) throws SQLException {
+        Hold next = lockNextPendingHold(conn, bookId);
+
+        if (next == null) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE copies SET status = 'AVAILABLE' WHERE copy_id = ?")) {
+                ps.setInt(1, copyId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE books SET available_copies = available_copies + 1 WHERE book_id = ?")) {
+                ps.setInt(1, bookId);
+                ps.executeUpdate();
+            }
+            return null;
+        }
+
+        reserveCopy(conn, copyId, next.getHoldId(), next.getMemberId());
+        return new Hold(next.getHoldId(), bookId, next.getMemberId(), next.getPlaceDate(), "READY", false, 0);
+    }
+
+    // Also queues the "ready for pickup" message in the same transaction; the
+    // NotificationDispatcher sends it and sets notification_sent.
+    private static void reserveCopy(Connection conn, int copyId, int holdId, int memberId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE copies SET status = 'READY_FOR_HOLD' WHERE copy_id = ?")) {
+            ps.setInt(1, copyId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE holds SET status = 'READY', copy_id = ?, ready_date = NOW(), notification_sent = FALSE " +
+                "WHERE hold_id = ?")) {
+            ps.setInt(1, copyId);
+            ps.setInt(2, holdId);
+            ps.executeUpdate();
+        }
+        MemberSummary.adjust(conn, memberId, BigDecimal.ZERO, 0, 1);
+        NotificationDispatcher.enqueue(conn, "HOLD_READY", holdId, memberId);
+    }
+
+    // Locks the next PENDING hold of the book. The queue index names the candidate; SKIP
+    // LOCKED makes concurrent returns of the same title promote different holds.
+    private static Hold lockNextPendingHold(Connection conn, int bookId) throws SQLException {
+        HoldQueueIndex index = HoldQueueIndex.getInstance();
+        if (index.isReady()) {
+            // If the candidate is gone or another return holds it, the query below decides
+            int candidate = index.peek(bookId);
+            if (candidate > 0) {
+                String sql = "SELECT hold_id, member_id, place_date FROM holds " +
+                             "WHERE hold_id = ? AND status = 'PENDING' FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, candidate);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            return new Hold(rs.getInt(1), bookId, rs.getInt(2), rs.getTimestamp(3), "PENDING", false, 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        String sql = "SELECT hold_id, member_id, place_date FROM holds " +
+                     "WHERE book_id = ? AND status = 'PENDING' " +
+                     "ORDER BY place_date ASC, hold_id ASC LIMIT 1 FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new Hold(rs.getInt(1), bookId, rs.getInt(2), rs.getTimestamp(3), "PENDING", false, 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    // If the member has a READY hold on the book, locks it and returns {hold_id, copy_id}
+    // so checkout can hand over the reserved copy; null otherwise.
+    static int[] lockReadyHold(Connection conn, int bookId, int memberId) throws SQLException {
+        String sql = "SELECT hold_id, copy_id FROM holds " +
+                     "WHERE book_id = ? AND member_id = ? AND status = 'READY' AND copy_id IS NOT NULL FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, bookId);
+            ps.setInt(2, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new int[]{rs.getInt(1), rs.getInt(2)} : null;
+            }
+        }
+    }
+
+    static void fulfillHold(Connection conn, int holdId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE holds SET status = 'FULFILLED' WHERE hold_id = ?")) {
+            ps.setInt(1, holdId);
+            ps.executeUpdate();
+        }
+    }
+
+    // Reserves an AVAILABLE copy for the next hold in line, e.g. after copies were added.
     public static Hold promoteNextHoldToReady(int bookId) {
+        Hold next;
         try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
 
-            String selectSql =
-                    "SELECT hold_id, member_id, place_date, status, notification_sent " +
-                    "FROM holds " +
-                    "WHERE book_id=? AND status='PENDING' " +
-                    "ORDER BY place_date ASC " +
-                    "LIMIT 1";
-            try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+            String claimSql = "SELECT copy_id FROM copies WHERE book_id = ? AND status = 'AVAILABLE' " +
+                              "ORDER BY copy_id LIMIT 1 FOR UPDATE" + DatabaseConnection.backend().skipLocked();
+            int copyId;
+            try (PreparedStatement ps = conn.prepareStatement(claimSql)) {
                 ps.setInt(1, bookId);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (!rs.next()) {
-                        return null; 
+                        conn.rollback();
+                        return null;
                     }
+                    copyId = rs.getInt(1);
+                }
+            }
 
-                    int holdId = rs.getInt("hold_id");
-                    int memberId = rs.getInt("member_id");
-                    Timestamp placeDate = rs.getTimestamp("place_date");
-                    String status = rs.getString("status");
-                    boolean notif = rs.getBoolean("notification_sent");
+            next = lockNextPendingHold(conn, bookId);
+            if (next == null) {
+                conn.rollback();
+                return null;
+            }
+            reserveCopy(conn, copyId, next.getHoldId(), next.getMemberId());
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE books SET available_copies = available_copies - 1 WHERE book_id = ?")) {
+                ps.setInt(1, bookId);
+                ps.executeUpdate();
+            }
+            conn.commit();
 
-                    String updateSql = "UPDATE holds SET status='READY' WHERE hold_id=?";
-                    try (PreparedStatement ups = conn.prepareStatement(updateSql)) {
-                        ups.setInt(1, holdId);
-                        ups.executeUpdate();
-                    }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return null;
+        }
 
-                    int pos = getQueuePositionForHold(conn, holdId);
+        HoldQueueIndex.getInstance().remove(next.getHoldId());
+        NotificationDispatcher.wakeUp();
+        return new Hold(next.getHoldId(), bookId, next.getMemberId(), next.getPlaceDate(), "READY", false, 0);
+    }
 
-                    return new Hold(holdId, bookId, memberId, placeDate, status, notif, pos);
-                }
+    // Pending holds on the book, or -1 if they could not be counted
+    public static int getQueueLength(int bookId) {
+        HoldQueueIndex index = HoldQueueIndex.getInstance();
+        if (index.isReady()) {
+            return index.length(bookId);
+        }
+
+        // Index still loading (or its rebuild failed): count in the database
+        String sql = "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status = 'PENDING'";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, bookId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
 
         } catch (SQLException ex) {
             ex.printStackTrace();
-            return null;
+            return -1;
         }
     }
 
@@ -152,16 +323,17 @@ public class ReservationService {
         List<Hold> holds = new ArrayList<>();
 
         String sql =
-                "SELECT hold_id, member_id, place_date, status, notification_sent, " +
-                "       ROW_NUMBER() OVER (ORDER BY place_date ASC) AS queue_pos " +
+                "SELECT hold_id, member_id, place_date, status, notification_sent " +
                 "FROM holds WHERE book_id=? AND status IN ('PENDING','READY') " +
-                "ORDER BY place_date ASC";
+                "ORDER BY place_date ASC, hold_id ASC";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, bookId);
             try (ResultSet rs = ps.executeQuery()) {
+                // Rows arrive in queue order, so the position is just the row number
+                int position = 0;
                 while (rs.next()) {
                     holds.add(
                             new Hold(
@@ -171,7 +343,7 @@ public class ReservationService {
                                     rs.getTimestamp("place_date"),
                                     rs.getString("status"),
                                     rs.getBoolean("notification_sent"),
-                                    rs.getInt("queue_pos")
+                                    ++position
                             )
                     );
                 }
@@ -4,6 +4,9 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class ReturnUI extends JFrame {
 
@@ -14,7 +17,7 @@ public class ReturnUI extends JFrame {
 
     public ReturnUI() {
         setTitle("Return Book - Librarian");
-        setSize(350, 200);
+        setSize(400, 200);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setLocationRelativeTo(null);
 
@@ -31,7 +34,7 @@ public class ReturnUI extends JFrame {
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         gbc.gridx = 0; gbc.gridy = 0;
-        add(new JLabel("Book ID:"), gbc);
+        add(new JLabel("Book ID(s):"), gbc);
         gbc.gridx = 1; gbc.gridy = 0;
         add(bookIdField, gbc);
 
@@ -55,22 +58,48 @@ public class ReturnUI extends JFrame {
 
     private void handleReturn() {
         try {
-            int bookId = Integer.parseInt(bookIdField.getText());
+            List<Integer> bookIds = parseBookIds(bookIdField.getText());
             int memberId = Integer.parseInt(memberIdField.getText()); 
 
-            String result = borrowingService.returnBook(bookId, memberId); 
+            returnButton.setEnabled(false);
+            BackgroundTasks.run(this, () -> bookIds.size() == 1
+                    ? borrowingService.returnBook(bookIds.get(0), memberId)
+                    : summarize(borrowingService.returnBooks(memberId, bookIds)), result -> {
+                returnButton.setEnabled(true);
+                JOptionPane.showMessageDialog(this, result,
+                        "Return Status",
+                        result.startsWith("SUCCESS") ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
 
-            JOptionPane.showMessageDialog(this, result,
-                    "Return Status",
-                    result.startsWith("SUCCESS") ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
-
-            if (result.startsWith("SUCCESS")) {
-                bookIdField.setText("");
-                memberIdField.setText("");
-            }
+                if (result.startsWith("SUCCESS")) {
+                    bookIdField.setText("");
+                    memberIdField.setText("");
+                }
+            }, ex -> {
+                returnButton.setEnabled(true);
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Return Status", JOptionPane.ERROR_MESSAGE);
+            });
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Please enter valid numbers for IDs.", "Input Error", JOptionPane.WARNING_MESSAGE);
         }
     }
+
+    // Several book IDs (a whole basket) may be entered separated by commas or spaces
+    private static List<Integer> parseBookIds(String text) {
+        List<Integer> ids = new ArrayList<>();
+        for (String part : text.trim().split("[,\\s]+")) {
+            ids.add(Integer.parseInt(part));
+        }
+        return ids;
+    }
+
+    private static String summarize(Map<Integer, String> results) {
+        StringBuilder sb = new StringBuilder();
+        boolean allOk = true;
+        for (Map.Entry<Integer, String> e : results.entrySet()) {
+            sb.append("Book ").append(e.getKey()).append(": ").append(e.getValue()).append("\n");
+            allOk &= e.getValue().startsWith("SUCCESS");
+        }
+        return (allOk ? "SUCCESS: " : "FAIL: ") + "Basket processed.\n" + sb;
+    }
 }
@@ -2,12 +2,15 @@ package librarysystem;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SearchBooksUI extends JFrame {
 
     private JTextField field;
     private DefaultTableModel model;
+    private final BackgroundTasks.Latest searchTask = new BackgroundTasks.Latest();
+    private final BookService bookService = new BookService();
 
     public SearchBooksUI() {
         setTitle("Search Books");
@@ -31,31 +34,27 @@ public class SearchBooksUI extends JFrame {
     }
 
     private void search() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-
-            String sql = "SELECT * FROM books WHERE isbn LIKE ? OR title LIKE ? OR author LIKE ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, "%" + field.getText() + "%");
-            pstmt.setString(2, "%" + field.getText() + "%");
-            pstmt.setString(3, "%" + field.getText() + "%");
-
-            ResultSet rs = pstmt.executeQuery();
-
+        String text = field.getText();
+        searchTask.run(this, () -> findBooks(text), rows -> {
             model.setRowCount(0);
-
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                        rs.getInt("book_id"),
-                        rs.getString("isbn"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getInt("publication_year")
-                });
+            for (Object[] row : rows) {
+                model.addRow(row);
             }
+        });
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,e.getMessage());
+    private List<Object[]> findBooks(String text) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Book b : bookService.searchBooks(text, "All")) {
+            rows.add(new Object[]{
+                    b.getBookId(),
+                    b.getIsbn(),
+                    b.getTitle(),
+                    b.getAuthor(),
+                    b.getCategory(),
+                    b.getPublicationYear()
+            });
         }
+        return rows;
     }
 }
@@ -1,64 +1,100 @@
 package librarysystem;
 
+import java.util.concurrent.TimeUnit;
+
+// The desktop's view of the session store: one signed-in user per desk window. Sessions
+// themselves live in a SessionStore shared by the whole process, so other front ends
+// (e.g. the HTTP API) can keep their own sessions next to this one.
 public class SessionManager {
-    private static SessionManager instance;
-    private User currentUser;
-    private long loginTime;
-    private boolean isActive;
+    private static final long MAX_SESSION_MINUTES = Long.getLong("library.sessionMaxMinutes", 480);
+    private static final long IDLE_TIMEOUT_MINUTES = Long.getLong("library.sessionIdleMinutes", 30);
+
+    private static class Holder {
+        static final SessionManager INSTANCE = new SessionManager();
+    }
+
+    private final SessionStore store;
+    private volatile String currentToken;
+    private volatile Runnable expiryListener;
     
     private SessionManager() {
-        this.isActive = false;
+        this.store = new SessionStore(TimeUnit.MINUTES.toMillis(MAX_SESSION_MINUTES),
+                TimeUnit.MINUTES.toMillis(IDLE_TIMEOUT_MINUTES), 1000, this::sessionExpired);
     }
     
     public static SessionManager getInstance() {
-        if (instance == null) {
-            instance = new SessionManager();
+        return Holder.INSTANCE;
+    }
+
+    public SessionStore getStore() {
+        return store;
+    }
+
+    // Called on the expiry wheel thread when the desk's session runs out
+    public void setExpiryListener(Runnable listener) {
+        this.expiryListener = listener;
+    }
+
+    private void sessionExpired(SessionStore.Session session) {
+        Runnable listener = expiryListener;
+        if (session.getToken().equals(currentToken) && listener != null) {
+            listener.run();
         }
-        return instance;
     }
     
     
     public void startSession(User user) {
-        this.currentUser = user;
-        this.loginTime = System.currentTimeMillis();
-        this.isActive = true;
+        SessionStore.Session session = store.create(user);
+        String previous = currentToken;
+        currentToken = session.getToken();
+        store.end(previous);
         System.out.println("Session started for: " + user.getName() + " (" + user.getRole() + ")");
     }
     
     
     public void endSession() {
-        if (currentUser != null) {
-            System.out.println("Session ended for: " + currentUser.getName());
+        String token = currentToken;
+        currentToken = null;
+        SessionStore.Session session = store.peek(token);
+        if (session != null) {
+            System.out.println("Session ended for: " + session.getUser().getName());
         }
-        this.currentUser = null;
-        this.loginTime = 0;
-        this.isActive = false;
+        store.end(token);
+    }
+
+    // Counts as activity for the idle timeout
+    public void touch() {
+        store.touch(currentToken);
     }
     
    
     public User getCurrentUser() {
-        return currentUser;
+        SessionStore.Session session = store.get(currentToken);
+        return session == null ? null : session.getUser();
     }
     
     
     public boolean isLoggedIn() {
-        return isActive && currentUser != null;
+        return store.peek(currentToken) != null;
     }
     
     
     public boolean isLibrarian() {
-        return isLoggedIn() && currentUser.isLibrarian();
+        User user = getCurrentUser();
+        return user != null && user.isLibrarian();
     }
     
     
     public boolean isMember() {
-        return isLoggedIn() && !currentUser.isLibrarian();
+        User user = getCurrentUser();
+        return user != null && !user.isLibrarian();
     }
     
     
     public long getSessionDurationMinutes() {
-        if (!isActive) return 0;
-        return (System.currentTimeMillis() - loginTime) / (1000 * 60);
+        SessionStore.Session session = store.peek(currentToken);
+        if (session == null) return 0;
+        return (System.currentTimeMillis() - session.getCreatedAt()) / (1000 * 60);
     }
     
   
@@ -74,19 +110,21 @@ public class SessionManager {
     
     
     public String getSessionInfo() {
-        if (!isLoggedIn()) {
+        SessionStore.Session session = store.peek(currentToken);
+        if (session == null) {
             return "No active session";
         }
         
         return String.format("User: %s | Role: %s | Duration: %d min", 
-            currentUser.getName(), 
-            currentUser.getRole(), 
+            session.getUser().getName(), 
+            session.getUser().getRole(), 
             getSessionDurationMinutes());
     }
     
    
+    // True once a session was started and has timed out without being ended
     public boolean isSessionExpired() {
-        return getSessionDurationMinutes() > 480;
+        return currentToken != null && store.peek(currentToken) == null;
     }
 
 }
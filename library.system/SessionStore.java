@@ -0,0 +1,243 @@
+package librarysystem;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Sessions of every desk served by this process, keyed by an opaque random token.
+// A session ends after maxAgeMillis in total or idleMillis without activity, whichever
+// comes first.
+//
+// Expiry runs on a hashed timing wheel: each session sits in the slot of the tick it is due
+// at, and one thread advances the wheel once per tick and looks only at that slot. Touching
+// a session just stamps lastAccessAt; when its slot comes up and it has been used since, it
+// is moved to the slot of its new deadline instead of expiring. Lookup and touch are O(1)
+// and nothing polls individual sessions.
+public class SessionStore {
+
+    private static final int WHEEL_SIZE = 512; // power of two
+    private static final int TOKEN_BYTES = 32;
+
+    private final long maxAgeMillis;
+    private final long idleMillis;
+    private final long tickMillis;
+    private final Consumer<Session> onExpired;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<ConcurrentLinkedQueue<Session>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final long startMillis;
+    private volatile long currentTick;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService ticker;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong ended = new AtomicLong();
+    private final AtomicLong expiredIdle = new AtomicLong();
+    private final AtomicLong expiredMaxAge = new AtomicLong();
+
+    public SessionStore(long maxAgeMillis, long idleMillis, long tickMillis, Consumer<Session> onExpired) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.idleMillis = idleMillis;
+        this.tickMillis = tickMillis;
+        this.onExpired = onExpired;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.startMillis = System.currentTimeMillis();
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-expiry-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    public Session create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(token, user, System.currentTimeMillis());
+        sessions.put(token, session);
+        schedule(session);
+        created.incrementAndGet();
+        return session;
+    }
+
+    // Returns the live session for the token and marks it as used, or null
+    public Session get(String token) {
+        Session session = peek(token);
+        if (session != null) {
+            session.lastAccessAt = System.currentTimeMillis();
+        }
+        return session;
+    }
+
+    // Like get() without counting as activity. A session past its deadline is never
+    // returned, even if the wheel has not reached it yet.
+    public Session peek(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (session.deadline() <= System.currentTimeMillis()) {
+            expire(session);
+            return null;
+        }
+        return session;
+    }
+
+    public boolean touch(String token) {
+        return get(token) != null;
+    }
+
+    public boolean end(String token) {
+        Session session = token == null ? null : sessions.remove(token);
+        if (session == null) {
+            return false;
+        }
+        ended.incrementAndGet();
+        return true; // its wheel entry finds the session gone and is dropped
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void schedule(Session session) {
+        long tick = Math.max(tickOf(session.deadline()), currentTick + 1);
+        session.dueTick = tick;
+        wheel.get((int) (tick & (WHEEL_SIZE - 1))).add(session);
+    }
+
+    private long tickOf(long millis) {
+        return (millis - startMillis + tickMillis - 1) / tickMillis;
+    }
+
+    // Ticker thread only. Catches up on ticks missed while the thread was not scheduled.
+    private void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long target = (now - startMillis) / tickMillis;
+            while (currentTick < target) {
+                long tick = currentTick + 1;
+                currentTick = tick;
+                processSlot(tick, now);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Session expiry wheel error: " + e.getMessage());
+        }
+    }
+
+    private void processSlot(long tick, long now) {
+        ConcurrentLinkedQueue<Session> slot = wheel.get((int) (tick & (WHEEL_SIZE - 1)));
+        int pending = slot.size();
+        for (int i = 0; i < pending; i++) {
+            Session session = slot.poll();
+            if (session == null) {
+                break;
+            }
+            if (sessions.get(session.token) != session) {
+                continue; // ended or already expired
+            }
+            if (session.dueTick > tick) {
+                slot.add(session); // due in a later round of the wheel
+            } else if (session.deadline() <= now) {
+                expire(session);
+            } else {
+                schedule(session); // used since it was scheduled
+            }
+        }
+    }
+
+    private void expire(Session session) {
+        if (!sessions.remove(session.token, session)) {
+            return;
+        }
+        if (session.createdAt + maxAgeMillis <= System.currentTimeMillis()) {
+            expiredMaxAge.incrementAndGet();
+        } else {
+            expiredIdle.incrementAndGet();
+        }
+        if (onExpired != null) {
+            try {
+                onExpired.accept(session);
+            } catch (RuntimeException e) {
+                System.err.println("Session expiry listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(sessions.size(), created.get(), ended.get(), expiredIdle.get(), expiredMaxAge.get());
+    }
+
+    public class Session {
+        private final String token;
+        private final User user;
+        private final long createdAt;
+        private volatile long lastAccessAt;
+        private long dueTick; // ticker thread, or the creating thread before publication
+
+        Session(String token, User user, long createdAt) {
+            this.token = token;
+            this.user = user;
+            this.createdAt = createdAt;
+            this.lastAccessAt = createdAt;
+        }
+
+        public String getToken() { return token; }
+        public User getUser() { return user; }
+        public long getCreatedAt() { return createdAt; }
+        public long getLastAccessAt() { return lastAccessAt; }
+
+        public long deadline() {
+            return Math.min(createdAt + maxAgeMillis, lastAccessAt + idleMillis);
+        }
+    }
+
+    public static class Stats {
+        private final int active;
+        private final long created;
+        private final long ended;
+        private final long expiredIdle;
+        private final long expiredMaxAge;
+
+        Stats(int active, long created, long ended, long expiredIdle, long expiredMaxAge) {
+            this.active = active;
+            this.created = created;
+            this.ended = ended;
+            this.expiredIdle = expiredIdle;
+            this.expiredMaxAge = expiredMaxAge;
+        }
+
+        public int getActive() { return active; }
+        public long getCreated() { return created; }
+        public long getEnded() { return ended; }
+        public long getExpiredIdle() { return expiredIdle; }
+        public long getExpiredMaxAge() { return expiredMaxAge; }
+
+        @Override
+        public String toString() {
+            return String.format("Sessions{active=%d, created=%d, ended=%d, expiredIdle=%d, expiredMaxAge=%d}",
+                    active, created, ended, expiredIdle, expiredMaxAge);
+        }
+    }
+}
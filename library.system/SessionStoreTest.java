@@ -0,0 +1,83 @@
+package librarysystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Checks idle and absolute expiry on the timing wheel with short timeouts, and that
+// concurrent desks can create, touch and end sessions. Needs no database.
+public class SessionStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== SESSION STORE TEST ===");
+        ConcurrentLinkedQueue<String> expired = new ConcurrentLinkedQueue<>();
+        SessionStore store = new SessionStore(1_500, 400, 50, s -> expired.add(s.getToken()));
+        boolean ok = true;
+
+        try {
+            User user = new User(1, "Test User", "test@test.local", "MEMBER", true);
+
+            String idle = store.create(user).getToken();
+            String busy = store.create(user).getToken();
+            String ended = store.create(user).getToken();
+            store.end(ended);
+
+            // Keep one session busy past the idle timeout, but not past the absolute one
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(100);
+                store.touch(busy);
+            }
+            boolean idleGone = store.peek(idle) == null && expired.contains(idle);
+            boolean busyAlive = store.peek(busy) != null;
+            System.out.println("  Idle session expired by the wheel: " + idleGone + " (expected true)");
+            System.out.println("  Touched session still alive: " + busyAlive + " (expected true)");
+            System.out.println("  Ended session reported as expired: " + expired.contains(ended) + " (expected false)");
+            ok &= idleGone && busyAlive && !expired.contains(ended);
+
+            for (int i = 0; i < 8; i++) {
+                Thread.sleep(100);
+                store.touch(busy);
+            }
+            boolean maxAgeGone = store.peek(busy) == null;
+            System.out.println("  Touched session expired at max age: " + maxAgeGone + " (expected true)");
+            ok &= maxAgeGone;
+
+            // Many desks at once
+            int desks = 16;
+            int perDesk = 2_000;
+            ExecutorService pool = Executors.newFixedThreadPool(desks);
+            CountDownLatch done = new CountDownLatch(desks);
+            List<String> errors = new ArrayList<>();
+            for (int d = 0; d < desks; d++) {
+                pool.submit(() -> {
+                    try {
+                        for (int i = 0; i < perDesk; i++) {
+                            String token = store.create(user).getToken();
+                            if (!store.touch(token) || !store.end(token) || store.get(token) != null) {
+                                synchronized (errors) {
+                                    errors.add(token);
+                                }
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            pool.shutdown();
+            System.out.println("  Concurrent create/touch/end errors: " + errors.size() + " (expected 0)");
+            System.out.println("  Sessions left: " + store.size() + " (expected 0)");
+            System.out.println("  " + store.getStats());
+            ok &= errors.isEmpty() && store.size() == 0;
+        } finally {
+            store.shutdown();
+        }
+
+        System.out.println("\nRESULT: " + (ok ? "PASSED" : "FAILED"));
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,171 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// RowSource for LazyTableModel backed by one SELECT. Sorting maps the model column to
+// a SQL expression and filtering is a LIKE over the given columns, both run in the database.
+//
+// Each row carries the values of its ORDER BY keys after the visible columns, so the next
+// block can seek past the previous one instead of skipping rows with OFFSET. defaultOrder
+// must end in a unique key (e.g. "f.status DESC, f.fine_id DESC") for the seek to be exact.
+public class SqlRowSource implements LazyTableModel.RowSource {
+
+    private final String selectList;
+    private final String fromClause;
+    private final String[] sortExpressions;
+    private final String[] filterExpressions;
+    private final String defaultOrder;
+    private final List<String> defaultKeys = new ArrayList<>();
+    private final List<Boolean> defaultDescending = new ArrayList<>();
+
+    public SqlRowSource(String selectList, String fromClause, String[] sortExpressions,
+                        String[] filterExpressions, String defaultOrder) {
+        this.selectList = selectList;
+        this.fromClause = fromClause;
+        this.sortExpressions = sortExpressions;
+        this.filterExpressions = filterExpressions;
+        this.defaultOrder = defaultOrder;
+        for (String part : defaultOrder.split(",")) {
+            String key = part.trim();
+            String upper = key.toUpperCase();
+            boolean desc = upper.endsWith(" DESC");
+            if (desc || upper.endsWith(" ASC")) {
+                key = key.substring(0, key.lastIndexOf(' ')).trim();
+            }
+            defaultKeys.add(key);
+            defaultDescending.add(desc);
+        }
+    }
+
+    @Override
+    public int count(String filter) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + fromClause + where(filter);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            bindFilter(ps, filter);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public List<Object[]> fetch(String filter, int sortColumn, boolean ascending,
+                                int offset, int limit, Object[] after) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        String order = defaultOrder;
+        if (sortColumn >= 0 && sortColumn < sortExpressions.length) {
+            order = sortExpressions[sortColumn] + (ascending ? " ASC" : " DESC") + ", " + defaultOrder;
+            keys.add(sortExpressions[sortColumn]);
+            descending.add(!ascending);
+        }
+        keys.addAll(defaultKeys);
+        descending.addAll(defaultDescending);
+
+        Object[] cursor = cursorOf(after, keys.size());
+        String where = where(filter);
+        if (cursor != null) {
+            where += (where.isEmpty() ? " WHERE " : " AND ") + seek(keys, descending);
+        }
+        String sql = "SELECT " + selectList + ", " + String.join(", ", keys) +
+                     " FROM " + fromClause + where +
+                     " ORDER BY " + order + (cursor != null ? " LIMIT ?" : " LIMIT ? OFFSET ?");
+
+        List<Object[]> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int next = bindFilter(ps, filter);
+            if (cursor != null) {
+                // key1 after ? OR (key1 = ? AND key2 after ?) OR ...
+                for (int k = 0; k < cursor.length; k++) {
+                    for (int j = 0; j <= k; j++) {
+                        ps.setObject(next++, cursor[j]);
+                    }
+                }
+                ps.setInt(next, limit);
+            } else {
+                ps.setInt(next++, limit);
+                ps.setInt(next, offset);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                int cols = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    Object[] row = new Object[cols];
+                    for (int i = 0; i < cols; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // The trailing key values of the previous block's last row, or null when there is no
+    // usable cursor. NULL keys do not compare, so those blocks are read with OFFSET.
+    private static Object[] cursorOf(Object[] after, int keyCount) {
+        if (after == null || after.length < keyCount) {
+            return null;
+        }
+        Object[] cursor = new Object[keyCount];
+        System.arraycopy(after, after.length - keyCount, cursor, 0, keyCount);
+        for (Object value : cursor) {
+            if (value == null) {
+                return null;
+            }
+        }
+        return cursor;
+    }
+
+    // Spelled out as ORs rather than a row comparison so mixed ASC/DESC keys work and
+    // MySQL can still range-scan the index behind the order
+    private static String seek(List<String> keys, List<Boolean> descending) {
+        boolean nullsFirst = DatabaseConnection.backend().nullsSortFirst();
+        StringBuilder sb = new StringBuilder("(");
+        for (int k = 0; k < keys.size(); k++) {
+            if (k > 0) sb.append(" OR ");
+            sb.append("(");
+            for (int j = 0; j < k; j++) {
+                sb.append(keys.get(j)).append(" = ? AND ");
+            }
+            String key = keys.get(k);
+            boolean desc = descending.get(k);
+            // NULLs come after every value when they sort last in this direction
+            if (desc == nullsFirst) {
+                sb.append("(").append(key).append(desc ? " < ?" : " > ?")
+                  .append(" OR ").append(key).append(" IS NULL)");
+            } else {
+                sb.append(key).append(desc ? " < ?" : " > ?");
+            }
+            sb.append(")");
+        }
+        return sb.append(")").toString();
+    }
+
+    private String where(String filter) {
+        if (filter == null || filter.isEmpty() || filterExpressions.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(" WHERE (");
+        for (int i = 0; i < filterExpressions.length; i++) {
+            if (i > 0) sb.append(" OR ");
+            sb.append(filterExpressions[i]).append(" LIKE ?");
+        }
+        return sb.append(")").toString();
+    }
+
+    private int bindFilter(PreparedStatement ps, String filter) throws SQLException {
+        int i = 1;
+        if (filter != null && !filter.isEmpty()) {
+            String like = "%" + filter + "%";
+            for (int j = 0; j < filterExpressions.length; j++) {
+                ps.setString(i++, like);
+            }
+        }
+        return i;
+    }
+}
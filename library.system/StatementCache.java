@@ -0,0 +1,168 @@
+package librarysystem;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LRU cache of prepared statements for one physical connection, keyed by SQL text.
+// Callers get a proxy whose close() hands the statement back to the cache instead
+// of closing it, so hot SQL is parsed once per connection.
+public class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, Entry> entries;
+    // Statements handed out but no longer in the map: entries evicted while checked out, and
+    // uncached duplicates. releaseAll() closes whatever the borrower left open.
+    private final List<Entry> evictedInUse = new ArrayList<>();
+    private final List<PreparedStatement> uncached = new ArrayList<>();
+
+    public StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                Entry e = eldest.getValue();
+                e.evicted = true;
+                if (e.inUse) {
+                    evictedInUse.add(e);
+                } else {
+                    e.closePhysical();
+                }
+                return true;
+            }
+        };
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+
+        Entry e = entries.get(key);
+        if (e != null && !e.inUse) {
+            hits.incrementAndGet();
+            e.inUse = true;
+            return e.proxy;
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement ps = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (e != null) {
+            // Same SQL is already open on this connection (nested use); hand out an uncached one.
+            uncached.add(ps);
+            return ps;
+        }
+
+        Entry created = new Entry(ps);
+        created.inUse = true;
+        entries.put(key, created);
+        return created.proxy;
+    }
+
+    // Called when the connection goes back to the pool. Services do not always close
+    // their statements, so anything still checked out is reclaimed here.
+    public void releaseAll() {
+        for (Entry e : entries.values()) {
+            if (e.inUse) {
+                e.reset();
+            }
+        }
+        for (Entry e : evictedInUse) {
+            if (e.inUse) {
+                e.reset(); // evicted, so this closes it
+            }
+        }
+        evictedInUse.clear();
+        for (PreparedStatement ps : uncached) {
+            try {
+                ps.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        uncached.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry implements InvocationHandler {
+        final PreparedStatement statement;
+        final PreparedStatement proxy;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        void reset() {
+            inUse = false;
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException ex) {
+                evicted = true;
+            }
+            if (evicted) {
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        reset();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package librarysystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Rows the database tests create for themselves and remove again afterwards: a book with
+// its copies, and batches of members. Each test tags its rows with a unique string so it
+// can run against a database that is in use.
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    // A book with the given number of AVAILABLE copies; the tag is also its ISBN
+    static int createBook(String tag, String title, int copies) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int bookId;
+            String sql = "INSERT INTO books (isbn, title, author, category, publication_year, total_copies, available_copies) " +
+                         "VALUES (?, ?, 'Test Author', 'Test', 2024, ?, ?)";
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, tag);
+                ps.setString(2, title + " " + tag);
+                ps.setInt(3, copies);
+                ps.setInt(4, copies);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    bookId = keys.getInt(1);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO copies (book_id, status) VALUES (?, 'AVAILABLE')")) {
+                for (int i = 0; i < copies; i++) {
+                    ps.setInt(1, bookId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return bookId;
+        }
+    }
+
+    // count members who cannot log in, with emails <tag>-<n>@test.local
+    static List<Integer> createMembers(String tag, String name, int count) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(createMember(name + " " + i, tag.toLowerCase() + "-" + i + "@test.local", "x", "MEMBER"));
+        }
+        return ids;
+    }
+
+    static int createMember(String name, String email, String passwordHash, String role) throws SQLException {
+        String sql = "INSERT INTO members (name, email, password_hash, role) VALUES (?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, name);
+            ps.setString(2, email);
+            ps.setString(3, passwordHash);
+            ps.setString(4, role);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    // Removes the book, the members and everything that refers to them. notification_outbox
+    // has no foreign keys, so its rows are removed by hold and by member explicitly.
+    static void cleanUp(int bookId, List<Integer> members) {
+        String memberIds = members.isEmpty() ? "NULL"
+                : members.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM notification_outbox WHERE member_id IN (" + memberIds + ") " +
+                               "OR hold_id IN (SELECT hold_id FROM holds WHERE book_id = " + bookId + ")");
+            stmt.executeUpdate("DELETE FROM holds WHERE book_id = " + bookId + " OR member_id IN (" + memberIds + ")");
+            stmt.executeUpdate("DELETE FROM fines WHERE member_id IN (" + memberIds + ")");
+            stmt.executeUpdate("DELETE FROM loans WHERE member_id IN (" + memberIds + ") " +
+                               "OR copy_id IN (SELECT copy_id FROM copies WHERE book_id = " + bookId + ")");
+            stmt.executeUpdate("DELETE FROM copies WHERE book_id = " + bookId);
+            stmt.executeUpdate("DELETE FROM books WHERE book_id = " + bookId);
+            stmt.executeUpdate("DELETE FROM members WHERE member_id IN (" + memberIds + ")");
+        } catch (SQLException e) {
+            System.err.println("Cleanup failed: " + e.getMessage());
+        }
+    }
+
+    static int queryInt(Connection conn, String sql, int param) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, param);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
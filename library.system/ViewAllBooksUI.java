@@ -1,8 +1,7 @@
 package librarysystem;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import java.sql.*;
+import java.awt.*;
 
 public class ViewAllBooksUI extends JFrame {
 
@@ -10,31 +9,28 @@ public class ViewAllBooksUI extends JFrame {
         setTitle("All Books");
         setSize(700, 500);
         setLocationRelativeTo(null);
+        setLayout(new BorderLayout());
 
-        DefaultTableModel model = new DefaultTableModel(
-                new String[]{"ID","ISBN","Title","Author","Category","Year"}, 0);
+        LazyTableModel model = new LazyTableModel(
+                new String[]{"ID","ISBN","Title","Author","Category","Year"},
+                new BookService().getBooksRowSource());
 
         JTable table = new JTable(model);
-        add(new JScrollPane(table));
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books")) {
-
-            while (rs.next()) {
-                model.addRow(new Object[]{
-                        rs.getInt("book_id"),
-                        rs.getString("isbn"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getInt("publication_year")
-                });
-            }
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, e.getMessage());
-        }
+        model.installHeaderSorting(table);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JTextField filterField = new JTextField(25);
+        JButton filterBtn = new JButton("Filter");
+        filterBtn.addActionListener(e -> model.setFilter(filterField.getText()));
+        filterField.addActionListener(e -> model.setFilter(filterField.getText()));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Filter:"));
+        top.add(filterField);
+        top.add(filterBtn);
+        add(top, BorderLayout.NORTH);
+
+        model.refresh();
 
         setVisible(true);
     }
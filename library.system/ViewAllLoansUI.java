@@ -1,12 +1,14 @@
 package librarysystem;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.TableModelEvent;
 import java.awt.*;
 
 public class ViewAllLoansUI extends JFrame {
 
     private final BorrowingService borrowingService = new BorrowingService();
+    private LazyTableModel model;
+    private JLabel countLabel;
 
     public ViewAllLoansUI() {
         setTitle("View All Loans - Librarian");
@@ -28,60 +30,48 @@ public class ViewAllLoansUI extends JFrame {
         titleLabel.setFont(new Font("Arial", Font.BOLD, 18));
         add(titleLabel, BorderLayout.NORTH);
 
-        // Refresh button
-        JButton refreshButton = new JButton("Refresh");
-        refreshButton.addActionListener(e -> refreshLoansTable());
-        
-        JPanel buttonPanel = new JPanel(new FlowLayout());
-        buttonPanel.add(refreshButton);
-        add(buttonPanel, BorderLayout.SOUTH);
-
-        refreshLoansTable(); // Load initial data
-
-        setVisible(true);
-    }
-
-    private void refreshLoansTable() {
         String[] columnNames = {"Loan ID", "Book Title", "Member Name", "Loan Date", "Due Date", "Status"};
-        String[][] data = borrowingService.getAllLoansData();
+        model = new LazyTableModel(columnNames, borrowingService.getLoansRowSource());
 
-        DefaultTableModel model = new DefaultTableModel(data, columnNames) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
-        
         JTable loansTable = new JTable(model);
         loansTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        
+        model.installHeaderSorting(loansTable);
+
         // ADDED: Better table styling
         loansTable.setRowHeight(25);
         loansTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
 
-        JScrollPane scrollPane = new JScrollPane(loansTable);
-        
-        // Replace existing table with refreshed one
-        getContentPane().removeAll();
-        
-        JLabel titleLabel = new JLabel("All Current and Past Loans", JLabel.CENTER);
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        add(titleLabel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
-        
-        // Refresh button
+        add(new JScrollPane(loansTable), BorderLayout.CENTER);
+
+        // Filter and refresh controls
+        JTextField filterField = new JTextField(20);
+        filterField.addActionListener(e -> model.setFilter(filterField.getText()));
+
         JButton refreshButton = new JButton("Refresh");
         refreshButton.addActionListener(e -> refreshLoansTable());
-        
+
+        countLabel = new JLabel(" ");
+        model.addTableModelListener(e -> {
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE) {
+                countLabel.setText(model.getRowCount() == 0
+                        ? "No loan records found."
+                        : model.getRowCount() + " loan(s)");
+            }
+        });
+
         JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.add(new JLabel("Filter (Title or Member):"));
+        buttonPanel.add(filterField);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(countLabel);
         add(buttonPanel, BorderLayout.SOUTH);
 
-        revalidate();
-        repaint();
+        refreshLoansTable(); // Load initial data
 
-        if (data.length == 0) {
-            JOptionPane.showMessageDialog(this, "No loan records found in the database.", "No Data", JOptionPane.INFORMATION_MESSAGE);
-        }
+        setVisible(true);
+    }
+
+    private void refreshLoansTable() {
+        model.refresh();
     }
 }
@@ -2,7 +2,7 @@ package librarysystem;
 
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
+import java.sql.SQLException;
 
 public class ViewReportsUI extends JFrame {
 
@@ -10,6 +10,8 @@ public class ViewReportsUI extends JFrame {
     private JLabel totalMembersLabel;
     private JLabel activeLoansLabel;
     private JTextArea detailedReportArea;
+    private JButton refreshBtn;
+    private final ReportService reportService = new ReportService();
 
     public ViewReportsUI() {
         setTitle("Library Reports & Statistics");
@@ -41,7 +43,7 @@ public class ViewReportsUI extends JFrame {
         scrollPane.setBorder(BorderFactory.createTitledBorder("Currently Borrowed Books List"));
         add(scrollPane, BorderLayout.CENTER);
 
-        JButton refreshBtn = new JButton("Refresh Data");
+        refreshBtn = new JButton("Refresh Data");
         refreshBtn.addActionListener(e -> generateReport());
         add(refreshBtn, BorderLayout.SOUTH);
 
@@ -58,50 +60,49 @@ public class ViewReportsUI extends JFrame {
     }
 
     private void generateReport() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            
-            updateCount(conn, "SELECT COUNT(*) FROM books", totalBooksLabel, "Total Books: ");
-            updateCount(conn, "SELECT COUNT(*) FROM members", totalMembersLabel, "Total Members: ");
-            updateCount(conn, "SELECT COUNT(*) FROM loans WHERE return_date IS NULL", activeLoansLabel, "Active Loans: ");
-
-            StringBuilder report = new StringBuilder();
-            report.append(String.format("%-30s %-20s %-15s\n", "Book Title", "Borrowed By", "Due Date"));
-            report.append("------------------------------------------------------------------\n");
-
-            String query = "SELECT b.title, m.name, l.due_date " +
-                           "FROM loans l " +
-                           "JOIN books b ON l.copy_id = b.book_id " + 
-                           "JOIN members m ON l.member_id = m.member_id " +
-                           "WHERE l.return_date IS NULL";
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                
-                while (rs.next()) {
-                    String title = rs.getString("title");
-                    if (title.length() > 28) title = title.substring(0, 25) + "...";
-                    
-                    report.append(String.format("%-30s %-20s %-15s\n",
-                            title,
-                            rs.getString("name"),
-                            rs.getString("due_date")));
-                }
-            }
-            detailedReportArea.setText(report.toString());
-
-        } catch (Exception e) {
+        refreshBtn.setEnabled(false);
+        detailedReportArea.setText("Loading...");
+        BackgroundTasks.run(this, this::loadReport, report -> {
+            refreshBtn.setEnabled(true);
+            totalBooksLabel.setText("Total Books: " + report.totalBooks);
+            totalMembersLabel.setText("Total Members: " + report.totalMembers);
+            activeLoansLabel.setText("Active Loans: " + report.activeLoans);
+            detailedReportArea.setText(report.text);
+        }, e -> {
+            refreshBtn.setEnabled(true);
             e.printStackTrace();
             detailedReportArea.setText("Error generating report: " + e.getMessage());
-        }
+        });
     }
 
-    private void updateCount(Connection conn, String sql, JLabel label, String prefix) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                label.setText(prefix + rs.getInt(1));
-            }
+    // Runs on a background thread; touches no Swing components
+    private Report loadReport() throws SQLException {
+        ReportService.Report data = reportService.getCirculationReport();
+        if (data == null) {
+            throw new SQLException("Could not read the report data");
+        }
+        Report result = new Report();
+        result.totalBooks = data.getTotalBooks();
+        result.totalMembers = data.getTotalMembers();
+        result.activeLoans = data.getActiveLoans();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-30s %-20s %-15s\n", "Book Title", "Borrowed By", "Due Date"));
+        report.append("------------------------------------------------------------------\n");
+        for (String[] loan : data.getOpenLoans()) {
+            String title = loan[0];
+            if (title.length() > 28) title = title.substring(0, 25) + "...";
+            report.append(String.format("%-30s %-20s %-15s\n", title, loan[1], loan[2]));
         }
+        result.text = report.toString();
+        return result;
+    }
+
+    private static class Report {
+        int totalBooks;
+        int totalMembers;
+        int activeLoans;
+        String text;
     }
 
 }
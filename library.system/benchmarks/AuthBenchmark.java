@@ -0,0 +1,38 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+// The login rate limiter is opened up so the benchmark measures logins, not rejections
+@Fork(value = 1, jvmArgsAppend = {"-Dlibrary.login.emailPerMinute=6000000", "-Dlibrary.login.clientPerMinute=6000000"})
+@State(Scope.Thread)
+public class AuthBenchmark {
+
+    private String storedHash;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        storedHash = PasswordUtils.hashPassword(BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public User authenticate(BenchmarkData data) {
+        return AuthService.authenticate(data.memberEmails.get(next++ % data.memberEmails.size()), BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordUtils.hashPassword(BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return PasswordUtils.checkPassword(BenchmarkData.PASSWORD, storedHash);
+    }
+}
@@ -0,0 +1,117 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed dataset shared by all benchmarks. The first run seeds the database with
+// DataGenerator using a fixed seed; later runs find the data and reuse it, so results
+// stay comparable between releases. On top of it come two fixture books: one with plenty
+// of copies for checkout/return and one with no copy left for hold placement.
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    static final long SEED = 20240601L;
+    static final int MEMBERS = 20_000;
+    static final int BOOKS = 10_000;
+    static final int LOANS = 200_000;
+    static final int HOLDS = 5_000;
+    static final String PASSWORD = "Member123!";
+
+    private static final String CHECKOUT_ISBN = "BENCH-CHECKOUT";
+    private static final String HOLD_ISBN = "BENCH-HOLD";
+    private static final int CHECKOUT_COPIES = 64;
+
+    int checkoutBookId;
+    int holdBookId;
+    List<Integer> memberIds = new ArrayList<>();
+    List<String> memberEmails = new ArrayList<>();
+    List<String> isbns = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        MigrationRunner.migrate(false);
+        if (countGenerated() < MEMBERS) {
+            new DataGenerator(SEED, MEMBERS, BOOKS, 3, LOANS, HOLDS, 4, 1.07, DataGenerator.DEFAULT_AS_OF).generate();
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            checkoutBookId = fixtureBook(conn, CHECKOUT_ISBN, CHECKOUT_COPIES, "AVAILABLE");
+            holdBookId = fixtureBook(conn, HOLD_ISBN, 1, "CHECKED_OUT");
+            // Members the borrowing limits let through, so every checkout takes the full path
+            load(conn, "SELECT m.member_id, m.email FROM members m " +
+                       "LEFT JOIN member_summary s ON s.member_id = m.member_id " +
+                       "WHERE m.email LIKE '%@gen.library.test' AND m.is_active = TRUE " +
+                       "AND COALESCE(s.active_loans, 0) = 0 AND COALESCE(s.unpaid_fines, 0) = 0 " +
+                       "ORDER BY m.member_id LIMIT 5000", true);
+            load(conn, "SELECT isbn FROM books WHERE isbn LIKE '979%' ORDER BY book_id LIMIT 5000", false);
+        }
+        CatalogIndex.getInstance().rebuild();
+        HoldQueueIndex.getInstance().rebuild();
+        AvailabilityReconciler.reconcile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.shutdown();
+    }
+
+    private int countGenerated() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM members WHERE email LIKE '%@gen.library.test'")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int fixtureBook(Connection conn, String isbn, int copies, String copyStatus) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT book_id FROM books WHERE isbn = ?")) {
+            ps.setString(1, isbn);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        int bookId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO books (isbn, title, author, category, publication_year) VALUES (?, ?, 'Benchmark', 'Test', 2024)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, isbn);
+            ps.setString(2, "Benchmark fixture " + isbn);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                bookId = keys.getInt(1);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO copies (book_id, status) VALUES (?, ?)")) {
+            for (int i = 0; i < copies; i++) {
+                ps.setInt(1, bookId);
+                ps.setString(2, copyStatus);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return bookId;
+    }
+
+    private void load(Connection conn, String sql, boolean members) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                if (members) {
+                    memberIds.add(rs.getInt(1));
+                    memberEmails.add(rs.getString(2));
+                } else {
+                    isbns.add(rs.getString(1));
+                }
+            }
+        }
+    }
+}
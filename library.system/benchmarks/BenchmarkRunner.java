@@ -0,0 +1,31 @@
+package librarysystem;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Runs the service benchmarks and writes JMH JSON results, one file per release:
+//   java librarysystem.BenchmarkRunner [label] [benchmark regex]
+// e.g. "BenchmarkRunner v1.3" writes benchmarks/results/jmh-v1.3.json
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String label = args.length > 0 ? args[0] : "local";
+        String include = args.length > 1 ? args[1] : "librarysystem\\..*Benchmark";
+
+        File dir = new File("benchmarks/results");
+        dir.mkdirs();
+        File result = new File(dir, "jmh-" + label + ".json");
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getPath())
+                .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + result.getPath());
+    }
+}
@@ -0,0 +1,29 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One operation is a checkout immediately followed by the return, so the fixture book's
+// copies and the members' loan counts stay the same from one invocation to the next
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BorrowingBenchmark {
+
+    private final BorrowingService service = new BorrowingService();
+    private int next;
+
+    @Benchmark
+    public String checkOutAndReturn(BenchmarkData data) {
+        int memberId = data.memberIds.get(next++ % data.memberIds.size());
+        String result = service.checkOutBook(data.checkoutBookId, memberId);
+        if (!result.startsWith("SUCCESS")) {
+            throw new IllegalStateException(result);
+        }
+        return service.returnBook(data.checkoutBookId, memberId);
+    }
+}
@@ -0,0 +1,31 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CatalogBenchmark {
+
+    @Param({"Silent", "Tanaka", "9790000012"})
+    public String keyword;
+
+    private final BookService bookService = new BookService();
+    private int next;
+
+    @Benchmark
+    public List<Book> searchBooks() {
+        return bookService.searchBooks(keyword, "All");
+    }
+
+    @Benchmark
+    public Book getBookByIsbn(BenchmarkData data) {
+        return bookService.getBookByIsbn(data.isbns.get(next++ % data.isbns.size()));
+    }
+}
@@ -0,0 +1,55 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Logins per second for each PBKDF2 cost setting. "0" is the legacy single SHA-256 round
+// for comparison. verifyDirect is the raw cost of one check on one core; loginBurst sends
+// 64 concurrent logins through AuthService's verifier pool, which is what the server
+// sustains under a term-start burst. No database needed.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordCostBenchmark {
+
+    @Param({"0", "100000", "310000", "600000"})
+    public int iterations;
+
+    private String storedHash;
+
+    @Setup
+    public void setUp() throws Exception {
+        storedHash = iterations == 0 ? legacyHash(BenchmarkData.PASSWORD)
+                                     : PasswordUtils.hashPassword(BenchmarkData.PASSWORD, iterations);
+    }
+
+    @Benchmark
+    public boolean verifyDirect() {
+        return PasswordUtils.checkPassword(BenchmarkData.PASSWORD, storedHash);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public AuthService.Verification loginBurst() {
+        return AuthService.verifyPassword(BenchmarkData.PASSWORD, storedHash);
+    }
+
+    private static String legacyHash(String password) throws Exception {
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update(salt);
+        byte[] hash = md.digest(password.getBytes());
+        byte[] combined = new byte[salt.length + hash.length];
+        System.arraycopy(salt, 0, combined, 0, salt.length);
+        System.arraycopy(hash, 0, combined, salt.length, hash.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+}
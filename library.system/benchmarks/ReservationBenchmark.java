@@ -0,0 +1,76 @@
+package librarysystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ReservationBenchmark {
+
+    // Members kept in the fixture book's queue for the lookup benchmarks
+    private static final int QUEUED = 200;
+    // Holds placed per placeHold iteration. Must stay below the members not already queued,
+    // so every call is a new placement rather than the duplicate-hold FAIL path.
+    private static final int PLACEMENTS = 4000;
+
+    private int next;
+
+    // A member can hold the book only once, so a time-boxed iteration would run out of new
+    // members and go on measuring rejections. Instead each iteration is exactly PLACEMENTS
+    // calls from a freshly emptied queue; the score is the time for the whole batch.
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = PLACEMENTS)
+    @Measurement(iterations = 5, batchSize = PLACEMENTS)
+    public String placeHold(BenchmarkData data) {
+        String result = ReservationService.placeHold(data.holdBookId, data.memberIds.get(next++));
+        if (!result.startsWith("SUCCESS")) {
+            throw new IllegalStateException(result);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int queueLength(BenchmarkData data) {
+        return ReservationService.getQueueLength(data.holdBookId);
+    }
+
+    @Benchmark
+    public List<Hold> queueForBook(BenchmarkData data) {
+        return ReservationService.getQueueForBook(data.holdBookId);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearQueue(BenchmarkData data) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM holds WHERE book_id = ?")) {
+            ps.setInt(1, data.holdBookId);
+            ps.executeUpdate();
+        }
+        HoldQueueIndex.getInstance().rebuild();
+        if (data.memberIds.size() < QUEUED + PLACEMENTS) {
+            throw new IllegalStateException("Need " + (QUEUED + PLACEMENTS) + " benchmark members, found " +
+                    data.memberIds.size());
+        }
+        // A queue of a realistic length for the lookup benchmarks, taken from the end of the
+        // member list so placeHold starts at the front with members not yet queued
+        for (int i = 0; i < QUEUED; i++) {
+            String result = ReservationService.placeHold(data.holdBookId,
+                    data.memberIds.get(data.memberIds.size() - 1 - i));
+            if (!result.startsWith("SUCCESS")) {
+                throw new IllegalStateException(result);
+            }
+        }
+        next = 0;
+    }
+}